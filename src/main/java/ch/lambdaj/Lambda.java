@@ -15,6 +15,8 @@ import ch.lambdaj.util.iterator.*;
 
 import java.math.*;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import org.hamcrest.*;
 
@@ -44,6 +46,41 @@ public final class Lambda {
         ArgumentsFactory.enableJitting(enable);
     }
 
+    /**
+     * Sets how many times an argument has to be evaluated before being compiled in bytecode. Defaults to 100
+     * @param threshold The number of evaluations after which an argument gets compiled
+     */
+    public static void setJitThreshold(int threshold) {
+        ArgumentsFactory.setJitThreshold(threshold);
+    }
+
+    /**
+     * Sets when and on which thread the arguments are compiled in bytecode. Defaults to {@link JitMode#ASYNCHRONOUS}
+     * @param mode The jit mode to be used for the arguments evaluated from now on
+     */
+    public static void setJitMode(JitMode mode) {
+        ArgumentsFactory.setJitMode(mode);
+    }
+
+    /**
+     * Configures the threads compiling the arguments in background when the jit mode is {@link JitMode#ASYNCHRONOUS}.
+     * By default at most 2 threads compile the arguments and at most 1000 arguments can wait to be compiled:
+     * when the queue is full the least evaluated arguments are dropped and submitted again later.
+     * @param parallelism The maximum number of threads compiling the arguments at the same time
+     * @param queueCapacity The maximum number of arguments that can be waiting to be compiled
+     */
+    public static void configureJitCompiler(int parallelism, int queueCapacity) {
+        ArgumentsFactory.configureJitCompiler(parallelism, queueCapacity);
+    }
+
+    /**
+     * Returns a snapshot of the activity of the compiler of the arguments
+     * @return The number of queued, compiled, failed and dropped arguments and the average compilation time
+     */
+    public static JitStatistics getJitStatistics() {
+        return ArgumentsFactory.getJitStatistics();
+    }
+
     /**
      * Register a custom argument creator factory for an unknown final class
      * @param clazz  The class for which this factory should be used
@@ -54,6 +91,15 @@ public final class Lambda {
         ArgumentsFactory.registerFinalClassArgumentCreator(clazz, creator);
     }
 
+    /**
+     * Discovers once how to create the placeholders for the given classes, so the first arguments created
+     * for them don't pay the cost of this discovery
+     * @param classes The classes, typically final ones, for which the placeholders creation has to be prepared
+     */
+    public static void preparePlaceholderCreation(Class<?>... classes) {
+        ArgumentsFactory.preparePlaceholderCreation(classes);
+    }
+
 	/**
 	 * Constructs a proxy object that mocks the given Class registering all the subsequent invocations on the object.
 	 * @param clazz The class of the object to be mocked
@@ -167,6 +213,94 @@ public final class Lambda {
         return ProxyIterator.createProxyIterator((ResettableIterator<T>)asResettableIterator(array), clazz);
     }
 
+    /**
+     * Transforms a collection of Ts in a single object having the same methods of a single instance of T, as done by
+     * {@link Lambda#forEach(Iterable)}, but lazily: a chain of invocations of methods returning an object, like
+     * <pre>
+     *      forEachLazy(persons).getAddress().getCity()
+     * </pre>
+     * is only recorded and gets performed walking the iterable once, without creating any intermediate collection,
+     * when its result is iterated or aggregated or a void method is invoked on it.
+     * Note that, differently from forEach, a method returning an object is never invoked if its result is not consumed.
+     * @param <T> The type of the items in the iterable
+     * @param iterable The iterable to be transformed
+     * @return An object that proxies all the item in the iterable
+     * @throws IllegalArgumentException if the iterable is null or empty
+     */
+	public static <T> T forEachLazy(Iterable<? extends T> iterable) {
+        ResettableIterator<T> resettableIterator = (ResettableIterator<T>)asResettableIterator(iterable);
+        if (!resettableIterator.hasNext())
+            throw new IllegalArgumentException("forEachLazy() is unable to introspect on an empty iterator. Use the overloaded method accepting a class instead");
+        return ProxyIterator.createLazyProxyIterator(resettableIterator, resettableIterator.next());
+	}
+
+    /**
+     * Transforms a collection of Ts in a single object having the same methods of a single instance of T, as done by
+     * {@link Lambda#forEach(Iterable, Class)}, but lazily as explained in {@link Lambda#forEachLazy(Iterable)}
+     * @param <T> The type of the items in the iterable
+     * @param iterable The iterable to be transformed
+     * @param clazz The class proxied by the returned object
+     * @return An object that proxies all the item in the iterable
+     */
+	public static <T> T forEachLazy(Iterable<? extends T> iterable, Class<T> clazz) {
+        return ProxyIterator.createLazyProxyIterator((ResettableIterator<T>)asResettableIterator(iterable), clazz);
+	}
+
+    /**
+     * Transforms a collection of Ts in a single object having the same methods of a single instance of T, as done by
+     * {@link Lambda#forEach(Iterable, Class)}, but invoking the methods on the items in parallel on the given executor,
+     * splitting the items in chunks of at most {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items.
+     * All the invocations are completed before the method invoked on the returned object returns.
+     * <pre>
+     *      forEachParallel(persons, Person.class, executor).setStatus(Status.ARCHIVED);
+     * </pre>
+     * @param <T> The type of the items in the iterable
+     * @param iterable The iterable to be transformed
+     * @param clazz The class proxied by the returned object
+     * @param executor The executor running the parallel invocations
+     * @return An object that proxies all the item in the iterable
+     * @throws ParallelInvocationException if some invocations fail, reporting the failures of all of them
+     */
+	public static <T> T forEachParallel(Iterable<? extends T> iterable, Class<T> clazz, Executor executor) {
+        return forEachParallel(iterable, clazz, executor, ParallelProxyIterator.DEFAULT_SPLIT_THRESHOLD, false);
+	}
+
+    /**
+     * Transforms a collection of Ts in a single object having the same methods of a single instance of T, as done by
+     * {@link Lambda#forEach(Iterable, Class)}, but invoking the methods on the items in parallel on the given executor.
+     * All the invocations are completed before the method invoked on the returned object returns.
+     * @param <T> The type of the items in the iterable
+     * @param iterable The iterable to be transformed
+     * @param clazz The class proxied by the returned object
+     * @param executor The executor running the parallel invocations
+     * @param splitThreshold The maximum number of items on which the method is invoked by a single task
+     * @param ordered True if the results of the invocations have to be in the same order of the items of the iterable
+     * @return An object that proxies all the item in the iterable
+     * @throws ParallelInvocationException if some invocations fail, reporting the failures of all of them
+     */
+	public static <T> T forEachParallel(Iterable<? extends T> iterable, Class<T> clazz, Executor executor, int splitThreshold, boolean ordered) {
+        return ParallelProxyIterator.createParallelProxyIterator((List<? extends T>)asRandomAccessList(iterable), clazz, executor, splitThreshold, ordered);
+	}
+
+    private static List<?> asRandomAccessList(Object iterable) {
+        if (iterable instanceof List && iterable instanceof RandomAccess) return (List<?>)iterable;
+        if (iterable instanceof Object[]) return Arrays.asList((Object[])iterable);
+        List<Object> list = new ArrayList<Object>();
+        for (Iterator<?> i = asIterator(iterable); i.hasNext();) { list.add(i.next()); }
+        return list;
+    }
+
+    /**
+     * Creates an executor suited to run in parallel the tasks mostly waiting for I/O, like the closures wrapping the
+     * invocation of a remote service applied through {@link Closure#eachParallel(Executor, int, Iterable[])}.
+     * It runs each task in a new virtual thread on the runtimes supporting them or in a cached pool of daemon threads otherwise.
+     * The returned executor should be shut down once it is no longer needed.
+     * @return A newly created executor
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        return ConcurrencyUtil.newThreadPerTaskExecutor();
+    }
+
 	// ////////////////////////////////////////////////////////////////////////
 	// /// Collection
 	// ////////////////////////////////////////////////////////////////////////
@@ -259,9 +393,11 @@ public final class Lambda {
 	 * @return A List with the same items of the given iterable sorted on the respective value of the given argument
 	 */
 	public static <T, A> List<T> sort(Object iterable, A argument, Comparator<A> comparator) {
+        Argument<A> actualArgument = actualArgument(argument);
+        if (PrimitiveArgumentSorter.isSortable(actualArgument, comparator)) return PrimitiveArgumentSorter.sort(asIterator(iterable), actualArgument, comparator);
 		List<T> sorted = new LinkedList<T>();
         for (Iterator<?> i = asIterator(iterable); i.hasNext();) { sorted.add((T)i.next()); }
-		Collections.sort(sorted, new ArgumentComparator<T, A>(argument, comparator));
+		Collections.sort(sorted, new ArgumentComparator<T, A>(actualArgument, comparator));
 		return sorted;
 	}
 
@@ -500,11 +636,11 @@ public final class Lambda {
 	// /// Aggregation
 	// ////////////////////////////////////////////////////////////////////////
 
-	private static Aggregator<? extends Number> getSumAggregator(Object object) {
-		if (object instanceof Integer) return new SumInteger((Integer)object);
-		if (object instanceof Double) return new SumDouble((Double)object);
-		if (object instanceof Long) return new SumLong((Long)object);
-		return new Sum((Number)object);
+	private static Number sumStartingFrom(Object first, Iterator<?> others) {
+		if (first instanceof Integer) return new IntSum().aggregate((Integer)first, (Iterator<Integer>)others);
+		if (first instanceof Double) return new DoubleSum().aggregate((Double)first, (Iterator<Double>)others);
+		if (first instanceof Long) return new LongSum().aggregate((Long)first, (Iterator<Long>)others);
+		return aggregate(others, new Sum((Number)first));
 	}
 
     private static final Sum SUM = new Sum();
@@ -539,6 +675,57 @@ public final class Lambda {
 	public static <T, A> T aggregate(Object iterable, Aggregator<T> aggregator, A argument) {
 		return aggregate(convertIterator(iterable, new ArgumentConverter<T, A>(argument)), aggregator);
 	}
+
+    /**
+     * Aggregates the items in the given iterable using the given {@link Aggregator} in parallel on the given executor,
+     * splitting the items in chunks of at most {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items.
+     * The items can be aggregated in parallel only if the aggregator is a {@link MergeableAggregator} or a
+     * {@link PairAggregator} declaring itself associative, otherwise they are aggregated sequentially.
+     * Lists and arrays are split without being copied, while the items of the other iterables are collected in a new list.
+     * @param iterable The iterable of objects to be aggregated
+     * @param aggregator The function that defines how the objects in this iterable have to be aggregated
+     * @param executor The executor running the parallel aggregations
+     * @return The result of the aggregation of all the items in the given iterable
+     * @throws ParallelInvocationException if the aggregation of some chunks fails, reporting the failures of all of them
+     */
+    public static <T> T aggregateParallel(Object iterable, Aggregator<T> aggregator, Executor executor) {
+        return aggregateParallel(iterable, aggregator, executor, ParallelProxyIterator.DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    /**
+     * Aggregates the items in the given iterable using the given {@link Aggregator} in parallel on the given executor
+     * as done by {@link Lambda#aggregateParallel(Object, Aggregator, Executor)}.
+     * @param iterable The iterable of objects to be aggregated
+     * @param aggregator The function that defines how the objects in this iterable have to be aggregated
+     * @param executor The executor running the parallel aggregations
+     * @param splitThreshold The maximum number of items aggregated by a single task
+     * @return The result of the aggregation of all the items in the given iterable
+     * @throws ParallelInvocationException if the aggregation of some chunks fails, reporting the failures of all of them
+     */
+    public static <T> T aggregateParallel(Object iterable, Aggregator<T> aggregator, Executor executor, int splitThreshold) {
+        return aggregateParallel(iterable, null, aggregator, executor, splitThreshold);
+    }
+
+    /**
+     * For each item in the given iterable collects the value defined by the given argument and then aggregates them
+     * using the given {@link Aggregator} in parallel on the given executor as done by {@link Lambda#aggregateParallel(Object, Aggregator, Executor)}.
+     * The argument is evaluated in parallel as well.
+     * @param iterable The iterable of items containing the property to be aggregated
+     * @param aggregator The function that defines how the property values have to be aggregated
+     * @param argument An argument defined using the {@link Lambda#on(Class)} method
+     * @param executor The executor running the parallel aggregations
+     * @return The result of the aggregation of the property values of all the items in the given iterable
+     * @throws ParallelInvocationException if the aggregation of some chunks fails, reporting the failures of all of them
+     */
+    public static <T, A> T aggregateParallel(Object iterable, Aggregator<T> aggregator, A argument, Executor executor) {
+        return aggregateParallel(iterable, (Converter<Object, T>)new ArgumentConverter<Object, A>(argument), aggregator, executor, ParallelProxyIterator.DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    private static <T> T aggregateParallel(Object iterable, Converter<Object, ? extends T> converter, Aggregator<T> aggregator, Executor executor, int splitThreshold) {
+        MergeableAggregator<T, ?> mergeable = ParallelAggregation.asMergeable(aggregator);
+        if (mergeable == null) return aggregate(converter == null ? iterable : convertIterator(iterable, converter), aggregator);
+        return ParallelAggregation.aggregate(asRandomAccessList(iterable), converter, mergeable, executor, splitThreshold);
+    }
 	
 	/**
 	 * Returns a lambda function defined as:
@@ -597,13 +784,70 @@ public final class Lambda {
 	 * @throws IllegalArgumentException if the iterable is not an Iterable
 	 */
 	public static <T> T sum(Object iterable, T argument) {
-        return (T)typedSum(convertIterator(iterable, new ArgumentConverter<Object, T>(argument)), argument.getClass());
+        Argument<T> actualArgument = actualArgument(argument);
+        if (isPrimitiveNumber(actualArgument.getReturnType()))
+            return (T)createPrimitiveSum(actualArgument.getReturnType()).aggregate(asIterator(iterable), actualArgument);
+        return (T)typedSum(convertIterator(iterable, new ArgumentConverter<Object, T>(actualArgument)), argument.getClass());
 	}
+
+    /**
+     * Sums the items in the given iterable of Numbers in parallel on the given executor, or returns the iterable itself
+     * if it actually is already a single number. The items are split in chunks of at most
+     * {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items whose partial sums are then summed together.
+     * @param iterable The iterable of numbers to be summed
+     * @param executor The executor running the parallel sums
+     * @return The sum of all the Number in the given iterable or the iterable itself if it actually is already a single number
+     * @throws IllegalArgumentException if the iterable is not neither an Iterable nor a Number
+     */
+    public static Number sumParallel(Object iterable, Executor executor) {
+        return parallelNumber(iterable, null, SUM, Double.class, executor);
+    }
+
+    /**
+     * Sums in parallel on the given executor the property values of the items in the given iterable defined by the given argument.
+     * Both the evaluation of the argument and the sum are split in chunks of at most
+     * {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items.
+     * @param iterable The iterable of items containing the property of which the values have to be summed.
+     * @param argument An argument defined using the {@link Lambda#on(Class)} method
+     * @param executor The executor running the parallel sums
+     * @return The sum of the property values extracted from all the items in the given iterable
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static <T> T sumParallel(Object iterable, T argument, Executor executor) {
+        return (T)parallelNumber(iterable, argumentConverter(argument), SUM, argument.getClass(), executor);
+    }
+
+    private static Converter<Object, Number> argumentConverter(Object argument) {
+        return new ArgumentConverter<Object, Number>((Argument<Number>)(Argument<?>)actualArgument(argument));
+    }
+
+    private static Number parallelNumber(Object iterable, Converter<Object, Number> converter, Aggregator<Number> aggregator, Class<?> numberClass, Executor executor) {
+        if (iterable instanceof Number) return (Number)iterable;
+        List<?> items = asRandomAccessList(iterable);
+        if (items.isEmpty()) return typedZero(numberClass);
+        return aggregateParallel(items, converter, aggregator, executor, ParallelProxyIterator.DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    private static boolean isPrimitiveNumber(Class<?> clazz) {
+        return clazz == int.class || clazz == long.class || clazz == double.class;
+    }
+
+    private static PrimitiveAggregator<?> createPrimitiveSum(Class<?> primitiveType) {
+        if (primitiveType == int.class) return new IntSum();
+        if (primitiveType == long.class) return new LongSum();
+        return new DoubleSum();
+    }
+
+    private static PrimitiveAggregator<?> createPrimitiveMinMax(Class<?> primitiveType, boolean max) {
+        if (primitiveType == int.class) return new IntMinMax(max);
+        if (primitiveType == long.class) return new LongMinMax(max);
+        return new DoubleMinMax(max);
+    }
 	
     private static Number typedSum(Object iterable, Class<?> numberClass) {
         if (iterable instanceof Number) return (Number)iterable;
         Iterator<?> iterator = asIterator(iterable);
-        return iterator.hasNext() ? aggregate(iterator, getSumAggregator(iterator.next())) : typedZero(numberClass);
+        return iterator.hasNext() ? sumStartingFrom(iterator.next(), iterator) : typedZero(numberClass);
     }
 
     private static Number typedZero(Class<?> numberClass) {
@@ -682,7 +926,46 @@ public final class Lambda {
      * @throws IllegalArgumentException if the iterable is not an Iterable
      */
     public static <T> T avg(Object iterable, T argument) {
-        return (T)typedAvg(convertIterator(iterable, new ArgumentConverter<Object, T>(argument)), argument.getClass());
+        Argument<T> actualArgument = actualArgument(argument);
+        if (isPrimitiveNumber(actualArgument.getReturnType())) return (T)primitiveAvg(asIterator(iterable), actualArgument);
+        return (T)typedAvg(convertIterator(iterable, new ArgumentConverter<Object, T>(actualArgument)), argument.getClass());
+    }
+
+    /**
+     * Calculates in parallel on the given executor the average of the items in the given iterable of Numbers,
+     * or returns the iterable itself if it actually is already a single number. The items are split in chunks of at most
+     * {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items whose partial sums and counts are then merged.
+     * @param iterable The iterable of numbers to be averaged
+     * @param executor The executor running the parallel sums
+     * @return The average of all the Number in the given iterable or the iterable itself if it actually is already a single number
+     * @throws IllegalArgumentException if the iterable is not neither an Iterable nor a Number
+     */
+    public static Number avgParallel(Object iterable, Executor executor) {
+        return parallelNumber(iterable, null, new Avg(), Double.class, executor);
+    }
+
+    /**
+     * Calculates in parallel on the given executor the average of the property values of the items in the given iterable
+     * defined by the given argument.
+     * @param iterable The iterable of items containing the property for which the average of its the values has to be calculated.
+     * @param argument An argument defined using the {@link Lambda#on(Class)} method
+     * @param executor The executor running the parallel sums
+     * @return The average of the property values extracted from all the items in the given iterable
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static <T> T avgParallel(Object iterable, T argument, Executor executor) {
+        return (T)parallelNumber(iterable, argumentConverter(argument), new Avg(), argument.getClass(), executor);
+    }
+
+    private static Number primitiveAvg(Iterator<?> iterator, Argument<?> argument) {
+        PrimitiveAggregator<?> sum = createPrimitiveSum(argument.getReturnType());
+        PrimitiveAggregator.Accumulator<?> accumulator = sum.accumulate(iterator, argument);
+        Number total = accumulator.getResult();
+        int count = accumulator.getCount();
+        if (count < 2) return total;
+        if (total instanceof Integer) return total.intValue() / count;
+        if (total instanceof Long) return total.longValue() / count;
+        return total.doubleValue() / count;
     }
 
     private static Number typedAvg(Object iterable, Class<?> numberClass) {
@@ -758,8 +1041,35 @@ public final class Lambda {
 	 * @throws IllegalArgumentException if the iterable is not an Iterable
 	 */
 	public static <T> T min(Object iterable, T argument) {
-		return (T)aggregate(iterable, MIN, argument);
+        Argument<T> actualArgument = actualArgument(argument);
+        if (isPrimitiveNumber(actualArgument.getReturnType()))
+            return (T)createPrimitiveMinMax(actualArgument.getReturnType(), false).aggregate(asIterator(iterable), actualArgument);
+		return (T)aggregate(iterable, MIN, actualArgument);
 	}
+
+    /**
+     * Finds in parallel on the given executor the minimum item in the given iterable, splitting the items in chunks
+     * of at most {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items.
+     * @param iterable The iterable of objects on which the minimum should be found
+     * @param executor The executor running the parallel searches
+     * @return The minimum of all the Object in the given iterable
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static <T> T minParallel(Object iterable, Executor executor) {
+        return (T)aggregateParallel(iterable, MIN, executor);
+    }
+
+    /**
+     * Finds in parallel on the given executor the minimum item in the given iterable defined by the given argument.
+     * @param iterable The iterable of objects on which the minimum should be found
+     * @param argument An argument defined using the {@link Lambda#on(Class)} method
+     * @param executor The executor running the parallel searches
+     * @return The minimum of all the Object in the given iterable
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static <T> T minParallel(Object iterable, T argument, Executor executor) {
+        return (T)aggregateParallel(iterable, MIN, argument, executor);
+    }
 	
 	/**
 	 * Returns a lambda function defined as:
@@ -830,8 +1140,36 @@ public final class Lambda {
 	 * @throws IllegalArgumentException if the iterable is not an Iterable
 	 */
 	public static <T> T max(Object iterable, T argument) {
-		return (T)aggregate(iterable, MAX, argument);
+        Argument<T> actualArgument = actualArgument(argument);
+        if (isPrimitiveNumber(actualArgument.getReturnType()))
+            return (T)createPrimitiveMinMax(actualArgument.getReturnType(), true).aggregate(asIterator(iterable), actualArgument);
+		return (T)aggregate(iterable, MAX, actualArgument);
 	}
+
+    /**
+     * Finds in parallel on the given executor the maximum item in the given iterable, splitting the items in chunks
+     * of at most {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items.
+     * @param iterable The iterable of objects on which the maximum should be found
+     * @param executor The executor running the parallel searches
+     * @return The maximum of all the Object in the given iterable
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static <T> T maxParallel(Object iterable, Executor executor) {
+        return (T)aggregateParallel(iterable, MAX, executor);
+    }
+
+    /**
+     * Finds in parallel on the given executor the maximum item in the given iterable defined by the given argument.
+     * @param iterable The iterable of objects on which the maximum should be found
+     * @param argument An argument defined using the {@link Lambda#on(Class)} method
+     * @param executor The executor running the parallel searches
+     * @return The maximum of all the Object in the given iterable
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static <T> T maxParallel(Object iterable, T argument, Executor executor) {
+        return (T)aggregateParallel(iterable, MAX, argument, executor);
+    }
+
 	
 	/**
 	 * Returns a lambda function defined as:
@@ -878,6 +1216,147 @@ public final class Lambda {
 		return (T) aggregateFrom(iterable, clazz, MAX);
 	}
 
+	// -- (Statistics) --------------------------------------------------------
+
+    /**
+     * Calculates in a single pass the count, sum, minimum, maximum, mean and variance of the property values of the items
+     * in the given iterable defined by the given argument, skipping the null ones. The values are evaluated as doubles
+     * without being boxed when the argument returns a primitive number.
+     * <pre>
+     *      Statistics costs = stats(sales, on(Sale.class).getCost());
+     * </pre>
+     * Actually it handles also Maps, Arrays and Iterator by collecting their values.
+     * @param iterable The iterable of items containing the property of which the statistics have to be calculated
+     * @param argument An argument defined using the {@link Lambda#on(Class)} method
+     * @return The statistics of the property values extracted from all the items in the given iterable
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static Statistics stats(Object iterable, Object argument) {
+        return accumulateStatistics(iterable, actualArgument(argument))[0].getStatistics();
+    }
+
+    /**
+     * Calculates in a single pass on the given iterable the statistics of the property values defined by each of the
+     * given arguments, as done by {@link Lambda#stats(Object, Object)}.
+     * <pre>
+     *      List&lt;Statistics&gt; statistics = stats(sales, on(Sale.class).getCost(), on(Sale.class).getQuantity());
+     * </pre>
+     * @param iterable The iterable of items containing the properties of which the statistics have to be calculated
+     * @param arguments The arguments defined using the {@link Lambda#on(Class)} method
+     * @return The statistics of the values of each argument, in the same order of the arguments
+     * @throws IllegalArgumentException if the iterable is not an Iterable
+     */
+    public static List<Statistics> stats(Object iterable, Object... arguments) {
+        Argument<?>[] actualArguments = new Argument<?>[arguments.length];
+        for (int i = 0; i < arguments.length; i++) { actualArguments[i] = actualArgument(arguments[i]); }
+        List<Statistics> statistics = new ArrayList<Statistics>(arguments.length);
+        for (StatisticsAccumulator accumulator : accumulateStatistics(iterable, actualArguments)) { statistics.add(accumulator.getStatistics()); }
+        return statistics;
+    }
+
+    private static StatisticsAccumulator[] accumulateStatistics(Object iterable, Argument<?>... arguments) {
+        StatisticsAccumulator[] accumulators = new StatisticsAccumulator[arguments.length];
+        for (int i = 0; i < arguments.length; i++) { accumulators[i] = new StatisticsAccumulator(); }
+        for (Iterator<?> iterator = asIterator(iterable); iterator.hasNext();) {
+            Object item = iterator.next();
+            for (int i = 0; i < arguments.length; i++) { accumulators[i].add(item, arguments[i]); }
+        }
+        return accumulators;
+    }
+
+	// -- (Windows) -----------------------------------------------------------
+
+    /**
+     * Creates an aggregator of a stream of items in consecutive non overlapping windows of the given size defined on
+     * the key of each item, as in the following example:
+     * <pre>
+     *      WindowAggregator&lt;Tick, Object&gt; windows = tumblingWindows(on(Tick.class).getTimestamp(), 60000L, new Concat(), listener);
+     *      windows.push(tick);
+     * </pre>
+     * Each window is emitted to the given listener as soon as an item having a key following its end is pushed.
+     * @param keyArgument An argument defined using the {@link Lambda#on(Class)} method returning a number or a Date
+     * @param size The size of each window
+     * @param aggregator The aggregator of the items in each window
+     * @param listener The listener receiving the closed windows
+     * @return The aggregator on which the items have to be pushed
+     */
+    public static <T, A> WindowAggregator<T, A> tumblingWindows(Object keyArgument, long size, Aggregator<A> aggregator, WindowListener<A> listener) {
+        return slidingWindows(keyArgument, size, size, aggregator, listener);
+    }
+
+    /**
+     * Creates an aggregator of the values defined by the given value argument of a stream of items in consecutive
+     * non overlapping windows of the given size defined on the key of each item, as in the following example:
+     * <pre>
+     *      tumblingWindows(on(Tick.class).getTimestamp(), 60000L, new Avg(), on(Tick.class).getPrice(), listener);
+     * </pre>
+     * @param keyArgument An argument defined using the {@link Lambda#on(Class)} method returning a number or a Date
+     * @param size The size of each window
+     * @param aggregator The aggregator of the values in each window
+     * @param valueArgument An argument defined using the {@link Lambda#on(Class)} method defining the value to be aggregated
+     * @param listener The listener receiving the closed windows
+     * @return The aggregator on which the items have to be pushed
+     */
+    public static <T, A> WindowAggregator<T, A> tumblingWindows(Object keyArgument, long size, Aggregator<A> aggregator, A valueArgument, WindowListener<A> listener) {
+        return slidingWindows(keyArgument, size, size, aggregator, valueArgument, listener);
+    }
+
+    /**
+     * Creates an aggregator of a stream of items in windows of the given size starting every slide keys,
+     * so each item falls in more overlapping windows when the slide is smaller than the size.
+     * @param keyArgument An argument defined using the {@link Lambda#on(Class)} method returning a number or a Date
+     * @param size The size of each window
+     * @param slide The distance between the starts of 2 consecutive windows
+     * @param aggregator The aggregator of the items in each window
+     * @param listener The listener receiving the closed windows
+     * @return The aggregator on which the items have to be pushed
+     */
+    public static <T, A> WindowAggregator<T, A> slidingWindows(Object keyArgument, long size, long slide, Aggregator<A> aggregator, WindowListener<A> listener) {
+        return new SlidingWindowAggregator<T, A>(actualArgument(keyArgument), size, slide, aggregator, null, listener);
+    }
+
+    /**
+     * Creates an aggregator of the values defined by the given value argument of a stream of items in windows of
+     * the given size starting every slide keys.
+     * @param keyArgument An argument defined using the {@link Lambda#on(Class)} method returning a number or a Date
+     * @param size The size of each window
+     * @param slide The distance between the starts of 2 consecutive windows
+     * @param aggregator The aggregator of the values in each window
+     * @param valueArgument An argument defined using the {@link Lambda#on(Class)} method defining the value to be aggregated
+     * @param listener The listener receiving the closed windows
+     * @return The aggregator on which the items have to be pushed
+     */
+    public static <T, A> WindowAggregator<T, A> slidingWindows(Object keyArgument, long size, long slide, Aggregator<A> aggregator, A valueArgument, WindowListener<A> listener) {
+        return new SlidingWindowAggregator<T, A>(actualArgument(keyArgument), size, slide, aggregator, actualArgument(valueArgument), listener);
+    }
+
+    /**
+     * Creates an aggregator of a stream of items in sessions, i.e. in windows of items whose keys are less than
+     * gap apart from the key of the previous item.
+     * @param keyArgument An argument defined using the {@link Lambda#on(Class)} method returning a number or a Date
+     * @param gap The minimum distance between the keys of 2 items belonging to different sessions
+     * @param aggregator The aggregator of the items in each session
+     * @param listener The listener receiving the closed sessions
+     * @return The aggregator on which the items have to be pushed
+     */
+    public static <T, A> WindowAggregator<T, A> sessionWindows(Object keyArgument, long gap, Aggregator<A> aggregator, WindowListener<A> listener) {
+        return new SessionWindowAggregator<T, A>(actualArgument(keyArgument), gap, aggregator, null, listener);
+    }
+
+    /**
+     * Creates an aggregator of the values defined by the given value argument of a stream of items in sessions,
+     * i.e. in windows of items whose keys are less than gap apart from the key of the previous item.
+     * @param keyArgument An argument defined using the {@link Lambda#on(Class)} method returning a number or a Date
+     * @param gap The minimum distance between the keys of 2 items belonging to different sessions
+     * @param aggregator The aggregator of the values in each session
+     * @param valueArgument An argument defined using the {@link Lambda#on(Class)} method defining the value to be aggregated
+     * @param listener The listener receiving the closed sessions
+     * @return The aggregator on which the items have to be pushed
+     */
+    public static <T, A> WindowAggregator<T, A> sessionWindows(Object keyArgument, long gap, Aggregator<A> aggregator, A valueArgument, WindowListener<A> listener) {
+        return new SessionWindowAggregator<T, A>(actualArgument(keyArgument), gap, aggregator, actualArgument(valueArgument), listener);
+    }
+
 	// -- (Join) --------------------------------------------------------------
 
 	/**
@@ -1000,6 +1479,25 @@ public final class Lambda {
         } catch (IllegalArgumentException e) { return iterable.toString(); }
     }
 
+    /**
+     * Joins in parallel on the given executor all the object in the given iterable by concatenating all their String
+     * representation using the given separator, as done by {@link Lambda#join(Object, String)}. The items are split
+     * in chunks of at most {@link ParallelProxyIterator#DEFAULT_SPLIT_THRESHOLD} items whose concatenations are then
+     * joined in the order of the items.
+     * @param iterable The iterable containing the objects to be joined
+     * @param separator The String used to separe the item's String representation
+     * @param executor The executor running the parallel concatenations
+     * @return The concatenation of the String representation of all the objects in the given iterable or an empty String if the iterable is null or empty
+     */
+    public static String joinParallel(Object iterable, String separator, Executor executor) {
+        if (iterable == null) return "";
+        List<?> items;
+        try {
+            items = asRandomAccessList(iterable);
+        } catch (IllegalArgumentException e) { return iterable.toString(); }
+        return (String)aggregateParallel(items, new Concat(separator), executor);
+    }
+
 	// ////////////////////////////////////////////////////////////////////////
 	// /// Conversion
 	// ////////////////////////////////////////////////////////////////////////
@@ -4,26 +4,85 @@ import java.math.*;
 import java.util.*;
 
 /**
- * An aggregator calculating numbers' average
+ * An aggregator calculating numbers' average.
+ * It is stateless: the partial sum and the number of the averaged items are kept in an {@link Avg.Partial} created
+ * for each aggregation, so the same Avg can be reused and shared among threads. As a {@link MergeableAggregator}
+ * it can also calculate the average of different groups of numbers in parallel.
+ * The Doubles are summed with the Neumaier's compensated summation in order to not lose precision when averaging
+ * many numbers, while the BigDecimals are divided using the MathContext with which this Avg has been created, if any.
  * @author Mario Fusco
  */
-public class Avg extends Sum {
+public class Avg extends Sum implements MergeableAggregator<Number, Avg.Partial> {
 
-    int itemsCounter = 0;
+    private final MathContext mathContext;
+
+    /**
+     * Creates an aggregator calculating numbers' average that divides the sum of BigDecimals exactly,
+     * throwing an ArithmeticException if their average has a non-terminating decimal expansion
+     */
+    public Avg() {
+        this(null);
+    }
+
+    /**
+     * Creates an aggregator calculating numbers' average that divides the sum of BigDecimals using the given MathContext
+     * @param mathContext The MathContext used to divide the sum of BigDecimals
+     */
+    public Avg(MathContext mathContext) {
+        this.mathContext = mathContext;
+    }
 
     /**
      * {@inheritDoc}
      */
     public Number aggregate(Iterator<? extends Number> iterator) {
-        return divide(super.aggregate(iterator), itemsCounter);
+        Partial partial = createAccumulator();
+        if (iterator != null) while (iterator.hasNext()) { accumulate(partial, iterator.next()); }
+        return finish(partial);
+    }
+
+    /**
+     * Returns false since the average of the averages of 2 groups of numbers is not the average of all of them
+     */
+    @Override
+    public boolean isAssociative() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Partial createAccumulator() {
+        return new Partial(emptyItem());
     }
 
     /**
      * {@inheritDoc}
      */
-    public Number aggregate(Number first, Number second) {
-        itemsCounter++;
-        return super.aggregate(first, second);
+    public Partial accumulate(Partial accumulator, Number item) {
+        accumulator.count++;
+        if (item instanceof Double) accumulator.addDouble(item.doubleValue());
+        else if (item != null) accumulator.sum = super.aggregate(accumulator.getSum(), item);
+        return accumulator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Partial combine(Partial first, Partial second) {
+        if (first.compensated && second.compensated) {
+            first.addDouble(second.doubleSum);
+            first.compensation += second.compensation;
+        } else first.sum = merge(first.getSum(), second.getSum());
+        first.count += second.count;
+        return first;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Number finish(Partial accumulator) {
+        return divide(accumulator.getSum(), accumulator.count);
     }
 
     private Number divide(Number total, int count) {
@@ -33,7 +92,46 @@ public class Avg extends Sum {
         if (total instanceof Float) return total.floatValue() / count;
         if (total instanceof Double) return total.doubleValue() / count;
         if (total instanceof BigInteger) return ((BigInteger)total).divide(BigInteger.valueOf(count));
-        if (total instanceof BigDecimal) return ((BigDecimal)total).divide(new BigDecimal(count));
+        if (total instanceof BigDecimal) {
+            BigDecimal divisor = new BigDecimal(count);
+            return mathContext == null ? ((BigDecimal)total).divide(divisor) : ((BigDecimal)total).divide(divisor, mathContext);
+        }
         throw new RuntimeException("Unknown number type");
     }
+
+    /**
+     * The sum and the number of the numbers averaged so far.
+     * While only Doubles are summed the sum is kept in primitive doubles together with the compensation of its rounding errors.
+     */
+    public static final class Partial {
+        private Number sum;
+        private boolean compensated;
+        private double doubleSum;
+        private double compensation;
+        private int count;
+
+        private Partial(Number sum) {
+            this.sum = sum;
+        }
+
+        private void addDouble(double value) {
+            if (!compensated) {
+                doubleSum = sum == null ? 0.0 : sum.doubleValue();
+                compensation = 0.0;
+                compensated = true;
+            }
+            double total = doubleSum + value;
+            if (Math.abs(doubleSum) >= Math.abs(value)) compensation += (doubleSum - total) + value;
+            else compensation += (value - total) + doubleSum;
+            doubleSum = total;
+        }
+
+        private Number getSum() {
+            if (compensated) {
+                sum = doubleSum + compensation;
+                compensated = false;
+            }
+            return sum;
+        }
+    }
 }
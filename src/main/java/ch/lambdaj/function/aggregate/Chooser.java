@@ -39,4 +39,12 @@ public abstract class Chooser<T> extends PairAggregator<T> {
 	public T emptyItem() {
 		return null;
 	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAssociative() {
+        return true;
+    }
 }
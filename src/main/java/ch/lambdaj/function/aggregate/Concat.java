@@ -10,7 +10,7 @@ import java.util.*;
  * An Aggregator that concats String or more generally the String representation of a given Object
  * @author Mario Fusco
  */
-public class Concat implements Aggregator<Object> {
+public class Concat implements MergeableAggregator<Object, StringBuilder> {
 
 	private final String separator;
 
@@ -56,4 +56,41 @@ public class Concat implements Aggregator<Object> {
         }
         return sb.toString();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public StringBuilder createAccumulator() {
+        return new StringBuilder();
+    }
+
+    /**
+     * Appends the String representation of the given object to the accumulated ones, unless it is null or blank
+     * @param accumulator The String representations concatenated so far
+     * @param item The object to be concatenated
+     * @return The given accumulator
+     */
+    public StringBuilder accumulate(StringBuilder accumulator, Object item) {
+        if (item == null) return accumulator;
+        String itemAsString = item.toString();
+        if (itemAsString.trim().equals("")) return accumulator;
+        if (accumulator.length() > 0) accumulator.append(separator);
+        return accumulator.append(itemAsString);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public StringBuilder combine(StringBuilder first, StringBuilder second) {
+        if (second.length() == 0) return first;
+        if (first.length() == 0) return second;
+        return first.append(separator).append(second);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object finish(StringBuilder accumulator) {
+        return accumulator.toString();
+    }
 }
@@ -0,0 +1,65 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * An aggregator that sums doubles without boxing the partial sums.
+ * It uses the Neumaier's compensated summation in order to not accumulate the rounding errors of the single additions.
+ * @author Mario Fusco
+ */
+public class DoubleSum extends PrimitiveAggregator<Double> {
+
+    @Override
+    public Accumulator createAccumulator() {
+        return new Accumulator();
+    }
+
+    /**
+     * The partial sum of a single aggregation
+     */
+    public static final class Accumulator extends PrimitiveAggregator.Accumulator<Double> {
+
+        private double sum = 0.0;
+        private double compensation = 0.0;
+
+        /**
+         * Adds a value to this sum
+         * @param value The value to be added
+         */
+        public void add(double value) {
+            double total = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) compensation += (sum - total) + value;
+            else compensation += (value - total) + sum;
+            sum = total;
+            count++;
+        }
+
+        /**
+         * Returns the sum of the values added so far
+         */
+        public double getSum() {
+            return sum + compensation;
+        }
+
+        @Override
+        protected void accumulate(Double value) {
+            add(value);
+        }
+
+        @Override
+        protected void accumulate(Object item, Argument<?> argument) {
+            add(argument.evaluateDouble(item));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Double getResult() {
+            return getSum();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * An aggregator that finds both the minimum and the maximum of ints without boxing them.
+ * It returns one of them as result of the aggregation, or null if no value has been aggregated.
+ * @author Mario Fusco
+ */
+public class IntMinMax extends PrimitiveAggregator<Integer> {
+
+    private final boolean returnMax;
+
+    /**
+     * Creates an aggregator that finds the minimum and the maximum of ints
+     * @param returnMax True if the maximum has to be returned as result of the aggregation, false for the minimum
+     */
+    public IntMinMax(boolean returnMax) {
+        this.returnMax = returnMax;
+    }
+
+    @Override
+    public Accumulator createAccumulator() {
+        return new Accumulator(returnMax);
+    }
+
+    /**
+     * The minimum and the maximum found by a single aggregation
+     */
+    public static final class Accumulator extends PrimitiveAggregator.Accumulator<Integer> {
+
+        private final boolean returnMax;
+
+        private boolean found = false;
+        private int min;
+        private int max;
+
+        private Accumulator(boolean returnMax) {
+            this.returnMax = returnMax;
+        }
+
+        /**
+         * Adds a value to the ones on which the minimum and the maximum are found
+         * @param value The value to be added
+         */
+        public void add(int value) {
+            if (!found || value <= min) min = value;
+            if (!found || value >= max) max = value;
+            found = true;
+            count++;
+        }
+
+        /**
+         * Returns the minimum of the values added so far or null if no value has been added
+         */
+        public Integer getMin() {
+            return found ? min : null;
+        }
+
+        /**
+         * Returns the maximum of the values added so far or null if no value has been added
+         */
+        public Integer getMax() {
+            return found ? max : null;
+        }
+
+        @Override
+        protected void accumulate(Integer value) {
+            add(value);
+        }
+
+        /**
+         * Since the primitive evaluation cannot return null, an item evaluated as the sentinel value is checked again
+         * through the boxed evaluation to discover if it actually is a null, that is skipped.
+         */
+        @Override
+        protected void accumulate(Object item, Argument<?> argument) {
+            int value = argument.evaluateInt(item, Integer.MIN_VALUE);
+            if (value == Integer.MIN_VALUE && argument.evaluate(item) == null) return;
+            add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Integer getResult() {
+            return returnMax ? getMax() : getMin();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * An aggregator that sums ints without boxing the partial sums
+ * @author Mario Fusco
+ */
+public class IntSum extends PrimitiveAggregator<Integer> {
+
+    @Override
+    public Accumulator createAccumulator() {
+        return new Accumulator();
+    }
+
+    /**
+     * The partial sum of a single aggregation
+     */
+    public static final class Accumulator extends PrimitiveAggregator.Accumulator<Integer> {
+
+        private int sum = 0;
+
+        /**
+         * Adds a value to this sum
+         * @param value The value to be added
+         */
+        public void add(int value) {
+            sum += value;
+            count++;
+        }
+
+        /**
+         * Returns the sum of the values added so far
+         */
+        public int getSum() {
+            return sum;
+        }
+
+        @Override
+        protected void accumulate(Integer value) {
+            add(value);
+        }
+
+        @Override
+        protected void accumulate(Object item, Argument<?> argument) {
+            add(argument.evaluateInt(item));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Integer getResult() {
+            return sum;
+        }
+    }
+}
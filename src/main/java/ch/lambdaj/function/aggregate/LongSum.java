@@ -0,0 +1,60 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * An aggregator that sums longs without boxing the partial sums
+ * @author Mario Fusco
+ */
+public class LongSum extends PrimitiveAggregator<Long> {
+
+    @Override
+    public Accumulator createAccumulator() {
+        return new Accumulator();
+    }
+
+    /**
+     * The partial sum of a single aggregation
+     */
+    public static final class Accumulator extends PrimitiveAggregator.Accumulator<Long> {
+
+        private long sum = 0L;
+
+        /**
+         * Adds a value to this sum
+         * @param value The value to be added
+         */
+        public void add(long value) {
+            sum += value;
+            count++;
+        }
+
+        /**
+         * Returns the sum of the values added so far
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        @Override
+        protected void accumulate(Long value) {
+            add(value);
+        }
+
+        @Override
+        protected void accumulate(Object item, Argument<?> argument) {
+            add(argument.evaluateLong(item));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Long getResult() {
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+/**
+ * An aggregator whose state is kept in an explicit accumulator, so that different groups of items can be accumulated
+ * independently, for example in parallel, and then their accumulators combined in a single result.
+ * The accumulators of 2 contiguous groups of items are always combined preserving the order of the groups.
+ * @author Mario Fusco
+ */
+public interface MergeableAggregator<T, A> extends Aggregator<T> {
+
+    /**
+     * Creates a new accumulator representing the aggregation of no items
+     * @return A new empty accumulator
+     */
+    A createAccumulator();
+
+    /**
+     * Accumulates an item in the given accumulator
+     * @param accumulator The accumulator of the items preceding the given one
+     * @param item The item to be accumulated
+     * @return The accumulator including the given item, that can be the same given accumulator updated in place
+     */
+    A accumulate(A accumulator, T item);
+
+    /**
+     * Combines the accumulators of 2 contiguous groups of items
+     * @param first The accumulator of the first group of items
+     * @param second The accumulator of the group of items following the first one
+     * @return The accumulator of both groups, that can be the first accumulator updated in place
+     */
+    A combine(A first, A second);
+
+    /**
+     * Returns the result of the aggregation of all the items in the given accumulator
+     * @param accumulator The accumulator of the aggregated items
+     * @return The result of the aggregation
+     */
+    T finish(A accumulator);
+}
@@ -37,4 +37,22 @@ public abstract class PairAggregator<T> implements Aggregator<T> {
      * @return The aggregation of first and second objects
      */
     protected abstract T aggregate(T first, T second);
+
+    /**
+     * Returns true if this aggregation is associative, so the items can be aggregated in contiguous groups whose
+     * results are then aggregated together, as done by a parallel aggregation. By default it returns false.
+     */
+    public boolean isAssociative() {
+        return false;
+    }
+
+    /**
+     * Merges the aggregations of 2 contiguous groups of items. By default it aggregates them as 2 single objects.
+     * @param first The aggregation of the first group of items
+     * @param second The aggregation of the group of items following the first one
+     * @return The aggregation of both groups of items
+     */
+    protected T merge(T first, T second) {
+        return aggregate(first, second);
+    }
 }
@@ -0,0 +1,41 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import java.util.*;
+
+/**
+ * Adapts an associative {@link PairAggregator} to a {@link MergeableAggregator} using the partial result of
+ * the aggregation as accumulator.
+ * @author Mario Fusco
+ */
+final class PairMergeableAggregator<T> implements MergeableAggregator<T, T> {
+
+    private final PairAggregator<T> pairAggregator;
+
+    PairMergeableAggregator(PairAggregator<T> pairAggregator) {
+        this.pairAggregator = pairAggregator;
+    }
+
+    public T aggregate(Iterator<? extends T> iterator) {
+        return pairAggregator.aggregate(iterator);
+    }
+
+    public T createAccumulator() {
+        return pairAggregator.emptyItem();
+    }
+
+    public T accumulate(T accumulator, T item) {
+        return pairAggregator.aggregate(accumulator, item);
+    }
+
+    public T combine(T first, T second) {
+        return pairAggregator.merge(first, second);
+    }
+
+    public T finish(T accumulator) {
+        return accumulator;
+    }
+}
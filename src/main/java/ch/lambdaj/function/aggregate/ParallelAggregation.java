@@ -0,0 +1,122 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.convert.*;
+import ch.lambdaj.proxy.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Aggregates the items of a list in parallel through a {@link MergeableAggregator}.
+ * The list is split in chunks of at most splitThreshold items, each one accumulated by a task submitted to the given
+ * executor, while the last chunk is accumulated by the invoking thread. The accumulators of the chunks are then
+ * combined in the order of the items.
+ * @author Mario Fusco
+ */
+public final class ParallelAggregation {
+
+    private ParallelAggregation() { }
+
+    /**
+     * Returns the given aggregator as a {@link MergeableAggregator} if it is possible to aggregate its items in parallel,
+     * i.e. if it already is a MergeableAggregator or if it is a {@link PairAggregator} declaring itself associative.
+     * @param aggregator The aggregator to be merged
+     * @return The MergeableAggregator equivalent to the given one or null if it cannot aggregate its items in parallel
+     */
+    public static <T> MergeableAggregator<T, ?> asMergeable(Aggregator<T> aggregator) {
+        if (aggregator instanceof MergeableAggregator) return (MergeableAggregator<T, ?>)aggregator;
+        if (aggregator instanceof PairAggregator && ((PairAggregator<T>)aggregator).isAssociative())
+            return new PairMergeableAggregator<T>((PairAggregator<T>)aggregator);
+        return null;
+    }
+
+    /**
+     * Aggregates in parallel the given items
+     * @param items The items to be aggregated
+     * @param converter The converter applied to each item before aggregating it or null to aggregate the items themselves
+     * @param aggregator The aggregator defining how to accumulate and combine the items
+     * @param executor The executor running the parallel tasks
+     * @param splitThreshold The maximum number of items accumulated by a single task
+     * @return The result of the aggregation of all the items
+     * @throws ParallelInvocationException if the aggregation of some chunks fails, reporting the failures of all of them
+     */
+    public static <T, A> T aggregate(List<?> items, Converter<Object, ? extends T> converter, MergeableAggregator<T, A> aggregator,
+                                     Executor executor, int splitThreshold) {
+        if (splitThreshold < 1) throw new IllegalArgumentException("The split threshold must be positive: " + splitThreshold);
+        int chunks = (items.size() + splitThreshold - 1) / splitThreshold;
+        if (chunks < 2) return aggregator.finish(accumulate(items, 0, items.size(), converter, aggregator));
+
+        Object[] accumulators = new Object[chunks];
+        Throwable[] failures = new Throwable[chunks];
+        CountDownLatch latch = new CountDownLatch(chunks);
+        for (int i = 0; i < chunks; i++) {
+            Chunk<T, A> chunk = new Chunk<T, A>(i, items, splitThreshold, converter, aggregator, accumulators, failures, latch);
+            if (i == chunks - 1) chunk.run();
+            else executor.execute(chunk);
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the parallel aggregation", e);
+        }
+
+        List<Throwable> allFailures = new ArrayList<Throwable>();
+        for (Throwable failure : failures) {
+            if (failure != null) allFailures.add(failure);
+        }
+        if (!allFailures.isEmpty()) throw new ParallelInvocationException("aggregate", allFailures);
+
+        A result = (A)accumulators[0];
+        for (int i = 1; i < chunks; i++) { result = aggregator.combine(result, (A)accumulators[i]); }
+        return aggregator.finish(result);
+    }
+
+    private static <T, A> A accumulate(List<?> items, int from, int to, Converter<Object, ? extends T> converter, MergeableAggregator<T, A> aggregator) {
+        A accumulator = aggregator.createAccumulator();
+        for (int i = from; i < to; i++) {
+            Object item = items.get(i);
+            accumulator = aggregator.accumulate(accumulator, converter == null ? (T)item : converter.convert(item));
+        }
+        return accumulator;
+    }
+
+    // the accumulator or the failure of each chunk is published to the invoking thread through the latch
+    private static final class Chunk<T, A> implements Runnable {
+        private final int index;
+        private final List<?> items;
+        private final int splitThreshold;
+        private final Converter<Object, ? extends T> converter;
+        private final MergeableAggregator<T, A> aggregator;
+        private final Object[] accumulators;
+        private final Throwable[] failures;
+        private final CountDownLatch latch;
+
+        Chunk(int index, List<?> items, int splitThreshold, Converter<Object, ? extends T> converter, MergeableAggregator<T, A> aggregator,
+              Object[] accumulators, Throwable[] failures, CountDownLatch latch) {
+            this.index = index;
+            this.items = items;
+            this.splitThreshold = splitThreshold;
+            this.converter = converter;
+            this.aggregator = aggregator;
+            this.accumulators = accumulators;
+            this.failures = failures;
+            this.latch = latch;
+        }
+
+        public void run() {
+            try {
+                int from = index * splitThreshold;
+                accumulators[index] = accumulate(items, from, Math.min(from + splitThreshold, items.size()), converter, aggregator);
+            } catch (Throwable t) {
+                failures[index] = t;
+            } finally {
+                latch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import java.util.*;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * An aggregator that accumulates the numbers in a primitive field instead of boxing the partial result of each
+ * aggregation step. The values can be taken from an {@link Argument} evaluated without boxing on each item.
+ * The state of each aggregation is kept in a new {@link Accumulator}, so the same instance can be reused.
+ * @author Mario Fusco
+ */
+public abstract class PrimitiveAggregator<T extends Number> implements Aggregator<T> {
+
+    /**
+     * Aggregates the given numbers skipping the null ones
+     * @param iterator The numbers to be aggregated
+     * @return The aggregation of the numbers
+     */
+    public T aggregate(Iterator<? extends T> iterator) {
+        return accumulateAll(createAccumulator(), iterator).getResult();
+    }
+
+    /**
+     * Aggregates the given first number together with the other ones skipping the null ones
+     * @param first The first number to be aggregated
+     * @param others The other numbers to be aggregated
+     * @return The aggregation of the numbers
+     */
+    public T aggregate(T first, Iterator<? extends T> others) {
+        Accumulator<T> accumulator = createAccumulator();
+        if (first != null) accumulator.accumulate(first);
+        return accumulateAll(accumulator, others).getResult();
+    }
+
+    /**
+     * Aggregates the values of the given argument on the given items
+     * @param iterator The items on which the argument is evaluated
+     * @param argument The argument evaluated on each item, returning a primitive number
+     * @return The aggregation of the values of the argument
+     */
+    public T aggregate(Iterator<?> iterator, Argument<?> argument) {
+        return accumulate(iterator, argument).getResult();
+    }
+
+    /**
+     * Accumulates the values of the given argument on the given items in a new {@link Accumulator}
+     * @param iterator The items on which the argument is evaluated
+     * @param argument The argument evaluated on each item, returning a primitive number
+     * @return The accumulator containing both the result and the number of the aggregated values
+     */
+    public Accumulator<T> accumulate(Iterator<?> iterator, Argument<?> argument) {
+        Accumulator<T> accumulator = createAccumulator();
+        if (iterator != null) while (iterator.hasNext()) { accumulator.accumulate(iterator.next(), argument); }
+        return accumulator;
+    }
+
+    private Accumulator<T> accumulateAll(Accumulator<T> accumulator, Iterator<? extends T> iterator) {
+        if (iterator != null) while (iterator.hasNext()) {
+            T value = iterator.next();
+            if (value != null) accumulator.accumulate(value);
+        }
+        return accumulator;
+    }
+
+    /**
+     * Creates the accumulator keeping the state of a single aggregation
+     */
+    public abstract Accumulator<T> createAccumulator();
+
+    /**
+     * The primitive state of a single aggregation
+     */
+    public abstract static class Accumulator<T extends Number> {
+
+        int count = 0;
+
+        /**
+         * Returns the number of values accumulated so far
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Accumulates a non null number
+         * @param value The number to be accumulated
+         */
+        protected abstract void accumulate(T value);
+
+        /**
+         * Accumulates the value of the given argument on the given item
+         * @param item The item on which the argument is evaluated
+         * @param argument The argument evaluated on the item
+         */
+        protected abstract void accumulate(Object item, Argument<?> argument);
+
+        /**
+         * Returns the result of the aggregation of the values accumulated so far
+         */
+        public abstract T getResult();
+    }
+}
@@ -26,7 +26,8 @@ public class ProxyAggregator<T, A> extends ProxyIterator<T> {
 
 	@Override
 	public Object invoke(Object obj, Method method, Object[] args) {
-		if(enabled) return normalizeResult(method.getReturnType(), aggregator.aggregate((Iterator<A>)iterateOnValues(method, args)));
+		if (method.getName().equals("finalize")) return null;
+		if(enabled) return normalizeResult(method.getReturnType(), aggregator.aggregate((Iterator<A>)(Iterator<?>)lazilyIterateOnValues(method, args)));
 	    return null;
     }
 
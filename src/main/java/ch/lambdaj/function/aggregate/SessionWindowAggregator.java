@@ -0,0 +1,58 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * Aggregates the items in sessions, i.e. in windows of items whose keys are less than gap apart from the key of the
+ * previous item. A session starts at the key of its first item and ends gap keys after the one of its last item.
+ * @author Mario Fusco
+ */
+public class SessionWindowAggregator<T, A> extends WindowAggregator<T, A> {
+
+    private final long gap;
+
+    private WindowContent<A> session;
+    private long sessionStart;
+    private long lastKey;
+
+    /**
+     * Creates an aggregator of the items in sessions
+     * @param keyArgument The argument defining the key of each item. It must return a number or a Date
+     * @param gap The minimum distance between the keys of 2 items belonging to different sessions
+     * @param aggregator The aggregator of the values of the items in each session
+     * @param valueArgument The argument defining the value of each item to be aggregated or null to aggregate the items themselves
+     * @param listener The listener receiving the closed sessions
+     */
+    public SessionWindowAggregator(Argument<?> keyArgument, long gap, Aggregator<A> aggregator, Argument<A> valueArgument, WindowListener<A> listener) {
+        super(keyArgument, aggregator, valueArgument, listener);
+        if (gap < 1) throw new IllegalArgumentException("The gap of a session must be positive: " + gap);
+        this.gap = gap;
+    }
+
+    @Override
+    protected void add(long key, A value) {
+        if (session == null) {
+            session = createContent();
+            sessionStart = key;
+        }
+        session.add(value);
+        lastKey = key;
+    }
+
+    @Override
+    protected void closeWindowsEndedBefore(long key) {
+        if (session != null && key >= lastKey + gap) closeAllWindows();
+    }
+
+    @Override
+    protected void closeAllWindows() {
+        if (session == null) return;
+        WindowContent<A> closed = session;
+        session = null;
+        emit(sessionStart, lastKey + gap, closed);
+    }
+}
@@ -0,0 +1,82 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+import java.util.*;
+
+/**
+ * Aggregates the items in windows of a fixed size starting every slide keys, aligned to the key 0.
+ * Each item falls in about size / slide overlapping windows, or in a single one if the slide is equal to the size,
+ * i.e. for tumbling windows. The windows containing no items are not emitted.
+ * @author Mario Fusco
+ */
+public class SlidingWindowAggregator<T, A> extends WindowAggregator<T, A> {
+
+    private final long size;
+    private final long slide;
+
+    private final LinkedList<OpenWindow<A>> openWindows = new LinkedList<OpenWindow<A>>();
+    private boolean opened = false;
+    private long lastOpenedStart;
+
+    /**
+     * Creates an aggregator of the items in sliding windows
+     * @param keyArgument The argument defining the key of each item. It must return a number or a Date
+     * @param size The size of each window
+     * @param slide The distance between the starts of 2 consecutive windows
+     * @param aggregator The aggregator of the values of the items in each window
+     * @param valueArgument The argument defining the value of each item to be aggregated or null to aggregate the items themselves
+     * @param listener The listener receiving the closed windows
+     */
+    public SlidingWindowAggregator(Argument<?> keyArgument, long size, long slide, Aggregator<A> aggregator, Argument<A> valueArgument, WindowListener<A> listener) {
+        super(keyArgument, aggregator, valueArgument, listener);
+        if (size < 1 || slide < 1) throw new IllegalArgumentException("The size and the slide of a window must be positive");
+        this.size = size;
+        this.slide = slide;
+    }
+
+    @Override
+    protected void add(long key, A value) {
+        long start = alignedStart(key - size) + slide;
+        if (opened && start <= lastOpenedStart) start = lastOpenedStart + slide;
+        for (; start <= key; start += slide) {
+            openWindows.add(new OpenWindow<A>(start, createContent()));
+            opened = true;
+            lastOpenedStart = start;
+        }
+        for (OpenWindow<A> window : openWindows) { window.content.add(value); }
+    }
+
+    private long alignedStart(long key) {
+        return key - (((key % slide) + slide) % slide);
+    }
+
+    @Override
+    protected void closeWindowsEndedBefore(long key) {
+        while (!openWindows.isEmpty() && openWindows.getFirst().start + size <= key) { close(openWindows.removeFirst()); }
+    }
+
+    @Override
+    protected void closeAllWindows() {
+        while (!openWindows.isEmpty()) { close(openWindows.removeFirst()); }
+        opened = false;
+    }
+
+    private void close(OpenWindow<A> window) {
+        emit(window.start, window.start + size, window.content);
+    }
+
+    private static final class OpenWindow<A> {
+        private final long start;
+        private final WindowContent<A> content;
+
+        OpenWindow(long start, WindowContent<A> content) {
+            this.start = start;
+            this.content = content;
+        }
+    }
+}
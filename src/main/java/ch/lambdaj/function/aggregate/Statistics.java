@@ -0,0 +1,90 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+/**
+ * The count, sum, minimum, maximum, mean and variance of a set of numbers calculated by a {@link StatisticsAccumulator}.
+ * The minimum, maximum and mean of an empty set of numbers are NaN.
+ * @author Mario Fusco
+ */
+public final class Statistics {
+
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double sumOfSquaredDeviations;
+
+    Statistics(long count, double sum, double min, double max, double mean, double sumOfSquaredDeviations) {
+        this.count = count;
+        this.sum = sum;
+        this.min = count == 0 ? Double.NaN : min;
+        this.max = count == 0 ? Double.NaN : max;
+        this.mean = count == 0 ? Double.NaN : mean;
+        this.sumOfSquaredDeviations = sumOfSquaredDeviations;
+    }
+
+    /**
+     * Returns the number of the numbers
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the numbers
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the lowest number or NaN if there are no numbers
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the highest number or NaN if there are no numbers
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the arithmetic mean of the numbers or NaN if there are no numbers
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the population variance of the numbers or NaN if there are no numbers
+     */
+    public double getVariance() {
+        return count == 0 ? Double.NaN : sumOfSquaredDeviations / count;
+    }
+
+    /**
+     * Returns the sample variance of the numbers, i.e. using count - 1 as denominator, or NaN if there are less than 2 numbers
+     */
+    public double getSampleVariance() {
+        return count < 2 ? Double.NaN : sumOfSquaredDeviations / (count - 1);
+    }
+
+    /**
+     * Returns the population standard deviation of the numbers or NaN if there are no numbers
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max + ", mean=" + mean + ", variance=" + getVariance();
+    }
+}
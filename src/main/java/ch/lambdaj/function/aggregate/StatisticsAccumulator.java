@@ -0,0 +1,73 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * Accumulates in a single pass the {@link Statistics} of a set of numbers keeping only primitive fields.
+ * The mean and the variance are updated with the Welford's algorithm, that doesn't suffer the loss of precision
+ * of the difference between the sum of the squares and the square of the sum.
+ * Two accumulators of different sets of numbers can be merged, for example after having accumulated them in parallel.
+ * It is not thread safe.
+ * @author Mario Fusco
+ */
+public class StatisticsAccumulator {
+
+    private long count = 0;
+    private double sum = 0.0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean = 0.0;
+    private double sumOfSquaredDeviations = 0.0;
+
+    /**
+     * Accumulates a number
+     * @param value The number to be accumulated
+     */
+    public void add(double value) {
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        double delta = value - mean;
+        mean += delta / count;
+        sumOfSquaredDeviations += delta * (value - mean);
+    }
+
+    /**
+     * Accumulates the value of the given argument on the given item, unless it is null
+     * @param item The item on which the argument is evaluated
+     * @param argument The argument evaluated on the item
+     */
+    public void add(Object item, Argument<?> argument) {
+        double value = argument.evaluateDouble(item, Double.NaN);
+        if (Double.isNaN(value) && argument.evaluate(item) == null) return;
+        add(value);
+    }
+
+    /**
+     * Merges in this accumulator the numbers accumulated by the given one
+     * @param other The accumulator to be merged in this one
+     */
+    public void merge(StatisticsAccumulator other) {
+        if (other.count == 0) return;
+        long totalCount = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / totalCount;
+        sumOfSquaredDeviations += other.sumOfSquaredDeviations + delta * delta * count * other.count / totalCount;
+        count = totalCount;
+        sum += other.sum;
+        if (other.min < min) min = other.min;
+        if (other.max > max) max = other.max;
+    }
+
+    /**
+     * Returns the statistics of the numbers accumulated so far
+     */
+    public Statistics getStatistics() {
+        return new Statistics(count, sum, min, max, mean, sumOfSquaredDeviations);
+    }
+}
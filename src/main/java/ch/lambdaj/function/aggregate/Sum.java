@@ -46,6 +46,28 @@ public class Sum extends InitializedPairAggregator<Number> {
 		throw new RuntimeException("unable to aggregate " + first + " and " + second);
 	}
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAssociative() {
+        return true;
+    }
+
+    /**
+     * Merges two partial sums. A partial sum that is still the first item, i.e. a group of null values, is skipped
+     * in order to not narrow the type of the other one.
+     * @param first The sum of the first group of numbers
+     * @param second The sum of the group of numbers following the first one
+     * @return The sum of both groups of numbers
+     */
+    @Override
+    protected Number merge(Number first, Number second) {
+        if (second == emptyItem()) return first;
+        if (first == emptyItem()) return second;
+        return aggregate(first, second);
+    }
+
 	private Integer aggregate(Number first, Integer second) {
 		return (first == null ? emptyItem().intValue() : first.intValue()) + second;
 	}
@@ -27,4 +27,12 @@ public class SumDouble extends InitializedPairAggregator<Double> {
 	public Double aggregate(Double first, Double second) {
 		return first + second;
 	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAssociative() {
+        return true;
+    }
 }
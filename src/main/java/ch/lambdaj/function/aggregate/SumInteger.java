@@ -27,4 +27,12 @@ public class SumInteger extends InitializedPairAggregator<Integer> {
 	public Integer aggregate(Integer first, Integer second) {
 		return first + second;
 	}
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAssociative() {
+        return true;
+    }
+}
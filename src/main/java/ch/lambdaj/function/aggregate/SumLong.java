@@ -27,4 +27,12 @@ public class SumLong extends InitializedPairAggregator<Long> {
 	public Long aggregate(Long first, Long second) {
 		return first + second;
 	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAssociative() {
+        return true;
+    }
 }
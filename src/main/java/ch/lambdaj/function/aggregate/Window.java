@@ -0,0 +1,57 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+/**
+ * The aggregation of the items falling in a window of keys, as emitted by a {@link WindowAggregator}.
+ * @author Mario Fusco
+ */
+public final class Window<A> {
+
+    private final long start;
+    private final long end;
+    private final int count;
+    private final A value;
+
+    Window(long start, long end, int count, A value) {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.value = value;
+    }
+
+    /**
+     * Returns the first key of this window (inclusive)
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the key at which this window ends (exclusive)
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of items aggregated in this window
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the aggregation of the items in this window
+     */
+    public A getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ") => " + value;
+    }
+}
@@ -0,0 +1,127 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import ch.lambdaj.function.argument.*;
+
+import java.util.*;
+
+/**
+ * Aggregates an unbounded stream of items in windows defined on the key of each item, like its timestamp.
+ * The items are pushed one by one and each window is aggregated while its items arrive, emitting its aggregation
+ * to the {@link WindowListener} as soon as the window is closed. Only the windows still open are kept in memory.
+ * The items are expected in non decreasing order of their keys: an item having a key lower than the one of a previous
+ * item, or having a null key, is discarded.
+ * The values are aggregated with an {@link Aggregator}, that should be stateless since it is used for all the windows.
+ * @author Mario Fusco
+ */
+public abstract class WindowAggregator<T, A> {
+
+    private final Argument<?> keyArgument;
+    private final boolean dateKey;
+    private final Argument<A> valueArgument;
+    private final Aggregator<A> aggregator;
+    private final WindowListener<A> listener;
+
+    private boolean started = false;
+    private long watermark;
+    private long discardedItems = 0;
+
+    /**
+     * Creates an aggregator of the items in windows
+     * @param keyArgument The argument defining the key of each item. It must return a number or a Date
+     * @param aggregator The aggregator of the values of the items in each window
+     * @param valueArgument The argument defining the value of each item to be aggregated or null to aggregate the items themselves
+     * @param listener The listener receiving the closed windows
+     */
+    protected WindowAggregator(Argument<?> keyArgument, Aggregator<A> aggregator, Argument<A> valueArgument, WindowListener<A> listener) {
+        this.keyArgument = keyArgument;
+        this.dateKey = Date.class.isAssignableFrom(keyArgument.getReturnType());
+        this.aggregator = aggregator;
+        this.valueArgument = valueArgument;
+        this.listener = listener;
+    }
+
+    /**
+     * Pushes an item in the windows it belongs to, closing the windows ended before its key
+     * @param item The item to be aggregated
+     */
+    public void push(T item) {
+        long key = dateKey ? dateKeyOf(item) : keyArgument.evaluateLong(item, Long.MIN_VALUE);
+        if ((key == Long.MIN_VALUE && keyArgument.evaluate(item) == null) || (started && key < watermark)) {
+            discardedItems++;
+            return;
+        }
+        advanceTo(key);
+        add(key, valueArgument == null ? (A)item : valueArgument.evaluate(item));
+    }
+
+    private long dateKeyOf(Object item) {
+        Date date = (Date)keyArgument.evaluate(item);
+        return date == null ? Long.MIN_VALUE : date.getTime();
+    }
+
+    /**
+     * Pushes all the given items in order
+     * @param iterator The items to be aggregated
+     */
+    public void pushAll(Iterator<? extends T> iterator) {
+        while (iterator.hasNext()) { push(iterator.next()); }
+    }
+
+    /**
+     * Closes all the windows ended before the given key, even if no item having that key has been pushed.
+     * It allows to emit the windows of a source that stopped producing items for a while.
+     * The items pushed after having invoked this method with a lower key are discarded.
+     * @param key The key up to which the windows must be closed
+     */
+    public void advanceTo(long key) {
+        if (started && key <= watermark) return;
+        started = true;
+        watermark = key;
+        closeWindowsEndedBefore(key);
+    }
+
+    /**
+     * Closes all the windows still open, as at the end of the stream, after which this aggregator starts over
+     */
+    public void flush() {
+        closeAllWindows();
+        started = false;
+    }
+
+    /**
+     * Returns the number of the items discarded because having a null key or a key lower than one already met
+     */
+    public long getDiscardedItems() {
+        return discardedItems;
+    }
+
+    /**
+     * Adds the value of an item to the windows it belongs to
+     * @param key The key of the item
+     * @param value The value to be aggregated
+     */
+    protected abstract void add(long key, A value);
+
+    /**
+     * Closes the windows ended before the given key
+     * @param key The key up to which the windows must be closed
+     */
+    protected abstract void closeWindowsEndedBefore(long key);
+
+    /**
+     * Closes all the windows still open
+     */
+    protected abstract void closeAllWindows();
+
+    WindowContent<A> createContent() {
+        return WindowContent.create(aggregator);
+    }
+
+    void emit(long start, long end, WindowContent<A> content) {
+        listener.windowClosed(new Window<A>(start, end, content.getCount(), content.getResult()));
+    }
+}
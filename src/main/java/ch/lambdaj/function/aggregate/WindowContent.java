@@ -0,0 +1,76 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import java.util.*;
+
+/**
+ * The values falling in an open window. When the aggregator can fold the values one by one, i.e. when it is a
+ * {@link MergeableAggregator} or a {@link PairAggregator}, only the partial aggregation is kept,
+ * otherwise the values are buffered until the window is closed.
+ * @author Mario Fusco
+ */
+abstract class WindowContent<A> {
+
+    private int count = 0;
+
+    void add(A value) {
+        count++;
+        accumulate(value);
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    abstract void accumulate(A value);
+
+    abstract A getResult();
+
+    static <A> WindowContent<A> create(Aggregator<A> aggregator) {
+        if (aggregator instanceof MergeableAggregator) return accumulating((MergeableAggregator<A, ?>)aggregator);
+        if (aggregator instanceof PairAggregator) return accumulating(new PairMergeableAggregator<A>((PairAggregator<A>)aggregator));
+        return new BufferedContent<A>(aggregator);
+    }
+
+    private static <A, X> WindowContent<A> accumulating(MergeableAggregator<A, X> aggregator) {
+        return new AccumulatingContent<A, X>(aggregator);
+    }
+
+    private static final class AccumulatingContent<A, X> extends WindowContent<A> {
+        private final MergeableAggregator<A, X> aggregator;
+        private X accumulator;
+
+        AccumulatingContent(MergeableAggregator<A, X> aggregator) {
+            this.aggregator = aggregator;
+            accumulator = aggregator.createAccumulator();
+        }
+
+        void accumulate(A value) {
+            accumulator = aggregator.accumulate(accumulator, value);
+        }
+
+        A getResult() {
+            return aggregator.finish(accumulator);
+        }
+    }
+
+    private static final class BufferedContent<A> extends WindowContent<A> {
+        private final Aggregator<A> aggregator;
+        private final List<A> values = new ArrayList<A>();
+
+        BufferedContent(Aggregator<A> aggregator) {
+            this.aggregator = aggregator;
+        }
+
+        void accumulate(A value) {
+            values.add(value);
+        }
+
+        A getResult() {
+            return aggregator.aggregate(values.iterator());
+        }
+    }
+}
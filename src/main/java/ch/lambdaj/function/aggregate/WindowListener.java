@@ -0,0 +1,18 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+/**
+ * Receives the windows emitted by a {@link WindowAggregator} as soon as they are closed.
+ * @author Mario Fusco
+ */
+public interface WindowListener<A> {
+
+    /**
+     * Notifies that a window has been closed
+     * @param window The closed window with the aggregation of its items
+     */
+    void windowClosed(Window<A> window);
+}
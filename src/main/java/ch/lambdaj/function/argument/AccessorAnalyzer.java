@@ -0,0 +1,208 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import net.sf.cglib.asm.ClassAdapter;
+import net.sf.cglib.asm.ClassReader;
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.Label;
+import net.sf.cglib.asm.MethodAdapter;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import ch.lambdaj.util.ConcurrentWeakHashMap;
+
+import static net.sf.cglib.asm.Opcodes.*;
+
+/**
+ * Analyzes the bytecode of a method in order to discover if it is a trivial accessor that just returns the value
+ * of a field of the object on which it is invoked, i.e. if its body is made only by the instructions
+ * ALOAD_0, GETFIELD and xRETURN.
+ *
+ * @author Mario Fusco
+ */
+final class AccessorAnalyzer {
+
+    private AccessorAnalyzer() { }
+
+    private static final Object NO_FIELD = new Object();
+
+    private static final ConcurrentWeakHashMap<Method, Object> ACCESSED_FIELDS = new ConcurrentWeakHashMap<Method, Object>();
+
+    /**
+     * Returns the field read by the given method if it is a trivial accessor
+     * @param method The method to be analyzed
+     * @return The accessible field returned by the given method or null if the method is not a trivial accessor
+     */
+    static Field getAccessedField(Method method) {
+        Object field = ACCESSED_FIELDS.get(method);
+        if (field == null) {
+            field = findAccessedField(method);
+            ACCESSED_FIELDS.put(method, field == null ? NO_FIELD : field);
+        }
+        return field == NO_FIELD ? null : (Field)field;
+    }
+
+    private static Field findAccessedField(Method method) {
+        int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isAbstract(modifiers) || Modifier.isNative(modifiers) || Modifier.isSynchronized(modifiers)) return null;
+        if (method.getParameterTypes().length != 0 || method.getReturnType() == void.class) return null;
+        try {
+            AccessorMethodVisitor accessor = readAccessor(method);
+            return accessor == null || !accessor.isAccessor() ? null : getField(method, accessor.fieldOwner, accessor.fieldName);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static AccessorMethodVisitor readAccessor(Method method) throws IOException {
+        Class<?> declaringClass = method.getDeclaringClass();
+        String resourceName = declaringClass.getName().replace('.', '/') + ".class";
+        ClassLoader classLoader = declaringClass.getClassLoader();
+        InputStream classStream = classLoader != null ? classLoader.getResourceAsStream(resourceName) : ClassLoader.getSystemResourceAsStream(resourceName);
+        if (classStream == null) return null;
+        try {
+            AccessorClassVisitor visitor = new AccessorClassVisitor(method);
+            new ClassReader(classStream).accept(visitor, ClassReader.SKIP_DEBUG + ClassReader.SKIP_FRAMES);
+            return visitor.methodVisitor;
+        } finally {
+            classStream.close();
+        }
+    }
+
+    /**
+     * Resolves the field as the GETFIELD instruction does, i.e. starting from the class referenced by the instruction
+     * that, since the field is read on this, is the declaring class of the method or one of its superclasses,
+     * as it happens for an accessor returning super.field when the field is shadowed
+     */
+    private static Field getField(Method method, String fieldOwner, String fieldName) {
+        Class<?> ownerClass = method.getDeclaringClass();
+        while (ownerClass != null && !Type.getInternalName(ownerClass).equals(fieldOwner)) ownerClass = ownerClass.getSuperclass();
+        for (Class<?> clazz = ownerClass; clazz != null; clazz = clazz.getSuperclass()) {
+            try {
+                Field field = clazz.getDeclaredField(fieldName);
+                if (Modifier.isStatic(field.getModifiers()) || field.getType() != method.getReturnType()) return null;
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) { }
+        }
+        return null;
+    }
+
+    private static class AccessorClassVisitor extends ClassAdapter {
+
+        private final String methodName;
+        private final String methodDescriptor;
+        private AccessorMethodVisitor methodVisitor;
+
+        AccessorClassVisitor(Method method) {
+            super(new ClassWriter(0));
+            methodName = method.getName();
+            methodDescriptor = Type.getMethodDescriptor(method);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            if (!name.equals(methodName) || !desc.equals(methodDescriptor)) return null;
+            methodVisitor = new AccessorMethodVisitor(super.visitMethod(access, name, desc, signature, exceptions));
+            return methodVisitor;
+        }
+
+    }
+
+    private static class AccessorMethodVisitor extends MethodAdapter {
+
+        private int instructions = 0;
+        private boolean accessor = true;
+        private String fieldOwner;
+        private String fieldName;
+
+        AccessorMethodVisitor(MethodVisitor mv) {
+            super(mv);
+        }
+
+        boolean isAccessor() {
+            return accessor && instructions == 3;
+        }
+
+        private void checkInstruction(boolean expected) {
+            accessor &= expected;
+            instructions++;
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            checkInstruction(instructions == 0 && opcode == ALOAD && var == 0);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+            checkInstruction(instructions == 1 && opcode == GETFIELD);
+            fieldOwner = owner;
+            fieldName = name;
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            checkInstruction(instructions == 2 && opcode >= IRETURN && opcode <= ARETURN);
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String desc) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitLdcInsn(Object cst) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label[] labels) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String desc, int dims) {
+            checkInstruction(false);
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+            checkInstruction(false);
+        }
+    }
+}
@@ -41,12 +41,89 @@ public class Argument<T> {
         return (T)invocationSequence.evaluate(object);
 	}
 	
+	/**
+	 * Evaluates this Argument on the given object as an int without boxing its value when it is a primitive
+	 * @param object The Object on which this Argument should be evaluated. It must be compatible with the Argument's root class.
+	 * @return The value of this Argument for the given Object or 0 if the evaluation meets a null
+	 */
+	public int evaluateInt(Object object) {
+		return invocationSequence.evaluateInt(object, 0);
+	}
+
+	/**
+	 * Evaluates this Argument on the given object as an int without boxing its value when it is a primitive
+	 * @param object The Object on which this Argument should be evaluated. It must be compatible with the Argument's root class.
+	 * @param valueIfNull The value returned if the evaluation meets a null
+	 * @return The value of this Argument for the given Object
+	 */
+	public int evaluateInt(Object object, int valueIfNull) {
+		return invocationSequence.evaluateInt(object, valueIfNull);
+	}
+
+	/**
+	 * Evaluates this Argument on the given object as a long without boxing its value when it is a primitive
+	 * @param object The Object on which this Argument should be evaluated. It must be compatible with the Argument's root class.
+	 * @return The value of this Argument for the given Object or 0 if the evaluation meets a null
+	 */
+	public long evaluateLong(Object object) {
+		return invocationSequence.evaluateLong(object, 0L);
+	}
+
+	/**
+	 * Evaluates this Argument on the given object as a long without boxing its value when it is a primitive
+	 * @param object The Object on which this Argument should be evaluated. It must be compatible with the Argument's root class.
+	 * @param valueIfNull The value returned if the evaluation meets a null
+	 * @return The value of this Argument for the given Object
+	 */
+	public long evaluateLong(Object object, long valueIfNull) {
+		return invocationSequence.evaluateLong(object, valueIfNull);
+	}
+
+	/**
+	 * Evaluates this Argument on the given object as a double without boxing its value when it is a primitive
+	 * @param object The Object on which this Argument should be evaluated. It must be compatible with the Argument's root class.
+	 * @return The value of this Argument for the given Object or 0 if the evaluation meets a null
+	 */
+	public double evaluateDouble(Object object) {
+		return invocationSequence.evaluateDouble(object, 0.0);
+	}
+
+	/**
+	 * Evaluates this Argument on the given object as a double without boxing its value when it is a primitive
+	 * @param object The Object on which this Argument should be evaluated. It must be compatible with the Argument's root class.
+	 * @param valueIfNull The value returned if the evaluation meets a null
+	 * @return The value of this Argument for the given Object
+	 */
+	public double evaluateDouble(Object object, double valueIfNull) {
+		return invocationSequence.evaluateDouble(object, valueIfNull);
+	}
+
 	/**
 	 * Returns the root class from which the sequence of method invocation defined by this argument starts
 	 */
 	public Class<?> getRootArgumentClass() {
 		return invocationSequence.getRootInvokedClass();
 	}
+
+	/**
+	 * Returns how many times the compiled evaluation of this Argument met an object of one of the classes
+	 * observed before its compilation. The count is approximated since it is updated without synchronization.
+	 */
+	public long getInlineCacheHits() {
+		return invocationSequence.getInlineCacheHits();
+	}
+
+	/**
+	 * Returns how many times the compiled evaluation of this Argument met an object of a class not observed
+	 * before its compilation. The count is approximated since it is updated without synchronization.
+	 */
+	public long getInlineCacheMisses() {
+		return invocationSequence.getInlineCacheMisses();
+	}
+
+	InvocationSequence getInvocationSequence() {
+		return invocationSequence;
+	}
 	
 	/**
 	 * Returns the type returned by the last method of the invocations sequence represented by this Argument.
@@ -4,10 +4,14 @@
 
 package ch.lambdaj.function.argument;
 
+import java.lang.ref.*;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 
+import ch.lambdaj.util.*;
+
 import static ch.lambdaj.proxy.ProxyUtil.*;
 
 /**
@@ -26,6 +30,38 @@ public final class ArgumentsFactory {
         InvocationSequence.enableJitting(enable);
     }
 
+    /**
+     * Sets how many times an argument has to be evaluated before being compiled in bytecode. Defaults to 100
+     * @param threshold The number of evaluations after which an argument gets compiled
+     */
+    public static void setJitThreshold(int threshold) {
+        InvocationSequence.setJitThreshold(threshold);
+    }
+
+    /**
+     * Sets when and on which thread the arguments are compiled in bytecode. Defaults to {@link JitMode#ASYNCHRONOUS}
+     * @param mode The jit mode to be used for the arguments evaluated from now on
+     */
+    public static void setJitMode(JitMode mode) {
+        InvocationSequence.setJitMode(mode);
+    }
+
+    /**
+     * Configures the threads compiling the arguments in background
+     * @param parallelism The maximum number of threads compiling the arguments at the same time
+     * @param queueCapacity The maximum number of arguments that can be waiting to be compiled
+     */
+    public static void configureJitCompiler(int parallelism, int queueCapacity) {
+        InvocationSequence.configureJitCompiler(parallelism, queueCapacity);
+    }
+
+    /**
+     * Returns a snapshot of the activity of the compiler of the arguments
+     */
+    public static JitStatistics getJitStatistics() {
+        return InvocationSequence.getJitStatistics();
+    }
+
 	// ////////////////////////////////////////////////////////////////////////
 	// /// Factory
 	// ////////////////////////////////////////////////////////////////////////
@@ -39,12 +75,12 @@ public final class ArgumentsFactory {
 		return createArgument(clazz, new InvocationSequence(clazz));
 	}
 	
-	private static final Map<InvocationSequence, Object> PLACEHOLDER_BY_INVOCATION = new WeakHashMap<InvocationSequence, Object>();
+	private static final ConcurrentWeakHashMap<InvocationSequence, Object> PLACEHOLDER_BY_INVOCATION = new ConcurrentWeakHashMap<InvocationSequence, Object>();
 
-	private static final Map<InvocationSequence, InvocationSequence> LIMITED_VALUE_INVOCATIONS = new HashMap<InvocationSequence, InvocationSequence>();
+	private static final ConcurrentMap<InvocationSequence, InvocationSequence> LIMITED_VALUE_INVOCATIONS = new ConcurrentHashMap<InvocationSequence, InvocationSequence>();
 
 	@SuppressWarnings("unchecked")
-	static synchronized <T> T createArgument(Class<T> clazz, InvocationSequence invocationSequence) {
+	static <T> T createArgument(Class<T> clazz, InvocationSequence invocationSequence) {
 		T placeholder = (T) PLACEHOLDER_BY_INVOCATION.get(invocationSequence);
 		if (placeholder == null) {
             placeholder = registerNewArgument(clazz, invocationSequence);
@@ -56,12 +92,18 @@ public final class ArgumentsFactory {
 
     private static <T> T registerNewArgument(Class<T> clazz, InvocationSequence invocationSequence) {
         T placeholder = (T)createPlaceholder(clazz, invocationSequence);
-        PLACEHOLDER_BY_INVOCATION.put(invocationSequence, placeholder);
-        if (isLimitedValues(placeholder)) {
-            LIMITED_VALUE_INVOCATIONS.put(invocationSequence, invocationSequence);
-        }
+        InvocationSequence registeredSequence = isLimitedValues(placeholder) ? LIMITED_VALUE_INVOCATIONS.putIfAbsent(invocationSequence, invocationSequence) : null;
+        if (registeredSequence != null) invocationSequence = registeredSequence;
+        else invocationSequence.usePrecompiledInvoker();
+        // the argument is bound before publishing its placeholder, so no other thread can find an unbound placeholder
         bindArgument(placeholder, new Argument<T>(invocationSequence));
-        return placeholder;
+        T registeredPlaceholder = (T)PLACEHOLDER_BY_INVOCATION.putIfAbsent(invocationSequence, placeholder);
+        if (registeredPlaceholder == null) return placeholder;
+
+        // another thread registered an equal invocation sequence in the meanwhile
+        if (isLimitedValues(registeredPlaceholder)) LIMITED_VALUE_ARGUMENTS.get().setArgument(registeredPlaceholder, new Argument<T>(invocationSequence));
+        else if (!isLimitedValues(placeholder)) ARGUMENTS_BY_PLACEHOLDER.remove(placeholder);
+        return registeredPlaceholder;
     }
 
     private static Object createPlaceholder(Class<?> clazz, InvocationSequence invocationSequence) {
@@ -74,7 +116,7 @@ public final class ArgumentsFactory {
 	// /// Arguments
 	// ////////////////////////////////////////////////////////////////////////
 	
-	private static final Map<Object, Argument<?>> ARGUMENTS_BY_PLACEHOLDER = new WeakHashMap<Object, Argument<?>>();
+	private static final ConcurrentWeakHashMap<Object, Argument<?>> ARGUMENTS_BY_PLACEHOLDER = new ConcurrentWeakHashMap<Object, Argument<?>>();
 	
     private static <T> void bindArgument(T placeholder, Argument<T> argument) {
     	if (isLimitedValues(placeholder)) LIMITED_VALUE_ARGUMENTS.get().setArgument(placeholder, argument);
@@ -90,6 +132,7 @@ public final class ArgumentsFactory {
     public static <T> Argument<T> actualArgument(T placeholder) {
     	Argument<T> actualArgument = placeholderToArgument(placeholder);
     	if (actualArgument == null) throw new ArgumentConversionException("Unable to convert the placeholder " + placeholder + " in a valid argument");
+    	actualArgument.getInvocationSequence().jitEagerly();
     	return actualArgument;
     }
 
@@ -197,7 +240,7 @@ public final class ArgumentsFactory {
 		}
     }
 
-    private static final Map<Class<?>, FinalClassArgumentCreator<?>> FINAL_CLASS_ARGUMENT_CREATORS = new HashMap<Class<?>, FinalClassArgumentCreator<?>>();
+    private static final Map<Class<?>, FinalClassArgumentCreator<?>> FINAL_CLASS_ARGUMENT_CREATORS = new ConcurrentHashMap<Class<?>, FinalClassArgumentCreator<?>>();
 
     /**
      * Register a custom argument creator factory for an unknown final class
@@ -214,36 +257,102 @@ public final class ArgumentsFactory {
         FINAL_CLASS_ARGUMENT_CREATORS.remove(clazz);
     }
 
+    /**
+     * Discovers once how to create the placeholders for the given classes, so the first arguments created
+     * for them don't pay the cost of this discovery. Useful to warm up at boot the final classes,
+     * like the value types, for which no custom argument creator has been registered.
+     * @param classes The classes for which the placeholders creation has to be prepared
+     * @throws ArgumentConversionException if it is not possible to create a placeholder for one of the given classes
+     */
+    public static void preparePlaceholderCreation(Class<?>... classes) {
+        for (Class<?> clazz : classes) createArgumentPlaceholder(clazz, PLACEHOLDER_COUNTER.addAndGet(1));
+    }
+
+    private static final ConcurrentWeakHashMap<Class<?>, PlaceholderConstructor> PLACEHOLDER_CONSTRUCTORS = new ConcurrentWeakHashMap<Class<?>, PlaceholderConstructor>();
+
     private static Object createArgumentPlaceholderForUnknownClass(Class<?> clazz, Integer placeholderId) throws IllegalAccessException, InstantiationException {
         FinalClassArgumentCreator<?> creator = FINAL_CLASS_ARGUMENT_CREATORS.get(clazz);
         if (creator != null) return creator.createArgumentPlaceHolder(placeholderId);
 
-        for (Constructor constructor : clazz.getConstructors()) {
-            Class<?>[] params = constructor.getParameterTypes();
-            if (params.length != 1) continue;
+        PlaceholderConstructor placeholderConstructor = PLACEHOLDER_CONSTRUCTORS.get(clazz);
+        if (placeholderConstructor != null) {
             try {
-                if (params[0] == String.class) return constructor.newInstance(String.valueOf(placeholderId));
-                if (isNumericClass(params[0])) return constructor.newInstance(placeholderId);
+                return placeholderConstructor.newInstance(clazz, placeholderId);
             } catch (IllegalAccessException e1) {
             } catch (InvocationTargetException e2) {
             }
+            // the constructor refused this placeholderId: looks for another one as done the first time
+        }
+
+        for (Constructor<?> constructor : clazz.getConstructors()) {
+            Class<?>[] params = constructor.getParameterTypes();
+            if (params.length != 1 || (params[0] != String.class && !isNumericClass(params[0]))) continue;
+            Object placeholder = tryPlaceholderConstructor(clazz, new PlaceholderConstructor(constructor), placeholderId);
+            if (placeholder != null) return placeholder;
         }
-        for (Constructor constructor : clazz.getConstructors()) {
+        for (Constructor<?> constructor : clazz.getConstructors()) {
             Class<?>[] params = constructor.getParameterTypes();
-            if (params.length != 2) continue;
+            if (params.length != 2 || (params[0] != String.class && !isNumericClass(params[0])) || (params[1] != String.class && !isNumericClass(params[1]))) continue;
+            Object placeholder = tryPlaceholderConstructor(clazz, new PlaceholderConstructor(constructor), placeholderId);
+            if (placeholder != null) return placeholder;
+        }
+        Object placeholder = clazz.newInstance();
+        PLACEHOLDER_CONSTRUCTORS.put(clazz, new PlaceholderConstructor());
+        return placeholder;
+    }
+
+    private static Object tryPlaceholderConstructor(Class<?> clazz, PlaceholderConstructor placeholderConstructor, Integer placeholderId) throws InstantiationException {
+        try {
+            Object placeholder = placeholderConstructor.newInstance(clazz, placeholderId);
+            PLACEHOLDER_CONSTRUCTORS.put(clazz, placeholderConstructor);
+            return placeholder;
+        } catch (IllegalAccessException e1) {
+        } catch (InvocationTargetException e2) {
+        }
+        return null;
+    }
+
+    /**
+     * The way, discovered once per class, to create a placeholder by invoking a public constructor
+     * taking up to two String or numeric parameters, or the default one.
+     * The constructor is weakly referenced, so it doesn't prevent the class weakly referenced by the cache from
+     * being unloaded. Only when it has been garbage collected it is looked up again through its parameter types,
+     * that are String or numeric and then don't reference the class to be instantiated.
+     */
+    private static final class PlaceholderConstructor {
+        private final Class<?>[] parameterTypes;
+        private volatile WeakReference<Constructor<?>> constructorRef;
+
+        PlaceholderConstructor() {
+            this.parameterTypes = null;
+        }
+
+        PlaceholderConstructor(Constructor<?> constructor) {
+            this.parameterTypes = constructor.getParameterTypes();
+            this.constructorRef = new WeakReference<Constructor<?>>(constructor);
+        }
+
+        Object newInstance(Class<?> clazz, Integer placeholderId) throws IllegalAccessException, InstantiationException, InvocationTargetException {
+            if (parameterTypes == null) return clazz.newInstance();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                Integer seed = i == 0 ? placeholderId : PLACEHOLDER_COUNTER.addAndGet(1);
+                args[i] = parameterTypes[i] == String.class ? String.valueOf(seed) : seed;
+            }
+            return getConstructor(clazz).newInstance(args);
+        }
+
+        private Constructor<?> getConstructor(Class<?> clazz) throws InstantiationException {
+            Constructor<?> constructor = constructorRef.get();
+            if (constructor != null) return constructor;
             try {
-                if (params[0] == String.class) {
-                    if (params[1] == String.class) return constructor.newInstance(String.valueOf(placeholderId), String.valueOf(PLACEHOLDER_COUNTER.addAndGet(1)));
-                    if (isNumericClass(params[1])) return constructor.newInstance(String.valueOf(placeholderId), PLACEHOLDER_COUNTER.addAndGet(1));
-                } else if (isNumericClass(params[0])) {
-                    if (params[1] == String.class) return constructor.newInstance(placeholderId, String.valueOf(PLACEHOLDER_COUNTER.addAndGet(1)));
-                    if (isNumericClass(params[1])) return constructor.newInstance(placeholderId, PLACEHOLDER_COUNTER.addAndGet(1));
-                }
-            } catch (IllegalAccessException e1) {
-            } catch (InvocationTargetException e2) {
+                constructor = clazz.getConstructor(parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new InstantiationException(e.getMessage());
             }
+            constructorRef = new WeakReference<Constructor<?>>(constructor);
+            return constructor;
         }
-        return clazz.newInstance();
     }
 
     private static boolean isNumericClass(Class<?> clazz) {
@@ -0,0 +1,21 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+/**
+ * Generates the bytecode of a class to be defined in the internal class loaders of the {@link InvokerJitter}
+ * through {@link GeneratedClasses#define(ClassLoader, String, ClassGenerator)}
+ *
+ * @author Mario Fusco
+ */
+public interface ClassGenerator {
+
+    /**
+     * Generates the bytecode of the class with the given name
+     * @param className The internal name of the class to be generated
+     * @return The bytecode of the generated class
+     */
+    byte[] generateBytecode(String className);
+}
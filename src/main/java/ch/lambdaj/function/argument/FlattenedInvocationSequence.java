@@ -0,0 +1,177 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import java.lang.reflect.*;
+
+/**
+ * A precompiled representation of an invocation sequence that evaluates it iteratively. The arguments of
+ * the invocations are cached when they are strongly referenced, so the evaluation of a sequence made only of
+ * getters or of methods having only primitive parameters doesn't allocate anything.
+ * The trivial accessors are evaluated by directly reading the field they return, unless the class of the object
+ * on which they are invoked overrides them.
+ * Until the sequence is compiled the classes of the objects on which each invocation is performed are profiled,
+ * and the compiled code falls back to this sequence starting from the invocation whose receiver breaks the
+ * assumptions made during the compilation.
+ *
+ * @author Mario Fusco
+ */
+final class FlattenedInvocationSequence {
+
+    private static final int MAX_GUARDED_TYPES = ReceiverTypeProfile.MAX_PROFILED_TYPES;
+
+    private final Invocation[] invocations;
+    private final Method[] methods;
+    private final Object[][] constantArgs;
+    private final Field[] accessedFields;
+    private final FieldAccessGuard[][] fieldAccessGuards;
+    private final ReceiverTypeProfile[] profiles;
+    private boolean profiling = true;
+
+    FlattenedInvocationSequence(Invocation lastInvocation) {
+        int length = 0;
+        for (Invocation invocation = lastInvocation; invocation != null; invocation = invocation.previousInvocation) length++;
+        invocations = new Invocation[length];
+        methods = new Method[length];
+        constantArgs = new Object[length][];
+        accessedFields = new Field[length];
+        fieldAccessGuards = new FieldAccessGuard[length][];
+        profiles = new ReceiverTypeProfile[length];
+        for (Invocation invocation = lastInvocation; invocation != null; invocation = invocation.previousInvocation) {
+            invocations[--length] = invocation;
+            methods[length] = invocation.getInvokedMethod();
+            constantArgs[length] = invocation.getConstantArgs();
+            accessedFields[length] = AccessorAnalyzer.getAccessedField(methods[length]);
+            if (accessedFields[length] != null) fieldAccessGuards[length] = new FieldAccessGuard[MAX_GUARDED_TYPES];
+            profiles[length] = new ReceiverTypeProfile();
+        }
+    }
+
+    int length() {
+        return methods.length;
+    }
+
+    Object invokeOn(Object object) {
+        return invokeOn(object, 0);
+    }
+
+    /**
+     * Evaluates the invocations of this sequence starting from the given one
+     * @param object The object on which the invocation at the given position has to be performed
+     * @param firstInvocation The position of the first invocation to be evaluated
+     * @return The result of the last invocation or null if any invocation returns null
+     */
+    Object invokeOn(Object object, int firstInvocation) {
+        try {
+            for (int i = firstInvocation; i < methods.length && object != null; i++) {
+                if (profiling) profiles[i].record(object.getClass());
+                if (accessedFields[i] != null && canAccessField(i, object.getClass())) {
+                    object = accessedFields[i].get(object);
+                } else {
+                    Object[] args = constantArgs[i];
+                    object = methods[i].invoke(object, args != null ? args : invocations[i].getConcreteArgs());
+                }
+            }
+            return object;
+        } catch (Exception e) {
+            if (e instanceof RuntimeException) throw (RuntimeException)e;
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the classes met as receivers of the invocation at the given position
+     */
+    Class<?>[] getProfiledTypes(int invocation) {
+        return profiles[invocation].getTypes();
+    }
+
+    void stopProfiling() {
+        profiling = false;
+    }
+
+    /**
+     * Returns the invokers to which the compiled code falls back when it cannot evaluate an invocation.
+     * The i-th invoker evaluates this sequence starting from its i-th invocation.
+     */
+    Invoker[] getFallbackInvokers() {
+        Invoker[] fallbacks = new Invoker[methods.length];
+        for (int i = 0; i < fallbacks.length; i++) fallbacks[i] = new FallbackInvoker(this, i);
+        return fallbacks;
+    }
+
+    /**
+     * Checks if the field returned by the i-th accessor can be read for the given receiver class. The answer is
+     * cached for the first {@link #MAX_GUARDED_TYPES} classes met, while the last slot is replaced by the following
+     * ones, so a polymorphic invocation doesn't look for an overriding method at each evaluation.
+     */
+    private boolean canAccessField(int i, Class<?> receiverClass) {
+        FieldAccessGuard[] guards = fieldAccessGuards[i];
+        int slot = 0;
+        for (; slot < MAX_GUARDED_TYPES - 1 && guards[slot] != null; slot++) {
+            if (guards[slot].receiverClass == receiverClass) return guards[slot].canAccessField;
+        }
+        FieldAccessGuard guard = guards[slot];
+        if (guard == null || guard.receiverClass != receiverClass) {
+            guard = new FieldAccessGuard(receiverClass, !isOverridden(methods[i], receiverClass));
+            guards[slot] = guard;
+        }
+        return guard.canAccessField;
+    }
+
+    static boolean isOverridden(Method method, Class<?> receiverClass) {
+        for (Class<?> clazz = receiverClass; clazz != null; clazz = clazz.getSuperclass()) {
+            if (clazz == method.getDeclaringClass()) return false;
+            try {
+                clazz.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                return true;
+            } catch (NoSuchMethodException e) { }
+        }
+        return true;
+    }
+
+    /**
+     * Remembers if the field returned by an accessor can be read for a class on which it has been invoked.
+     * Being immutable it can be safely stored and replaced without synchronization.
+     */
+    private static final class FieldAccessGuard {
+        private final Class<?> receiverClass;
+        private final boolean canAccessField;
+
+        private FieldAccessGuard(Class<?> receiverClass, boolean canAccessField) {
+            this.receiverClass = receiverClass;
+            this.canAccessField = canAccessField;
+        }
+    }
+
+    private static final class FallbackInvoker implements PrimitiveInvoker {
+        private final FlattenedInvocationSequence sequence;
+        private final int firstInvocation;
+
+        private FallbackInvoker(FlattenedInvocationSequence sequence, int firstInvocation) {
+            this.sequence = sequence;
+            this.firstInvocation = firstInvocation;
+        }
+
+        public Object invokeOn(Object object) {
+            return sequence.invokeOn(object, firstInvocation);
+        }
+
+        public int invokeOnInt(Object object, int valueIfNull) {
+            Number result = InvocationSequence.asNumber(invokeOn(object));
+            return result == null ? valueIfNull : result.intValue();
+        }
+
+        public long invokeOnLong(Object object, long valueIfNull) {
+            Number result = InvocationSequence.asNumber(invokeOn(object));
+            return result == null ? valueIfNull : result.longValue();
+        }
+
+        public double invokeOnDouble(Object object, double valueIfNull) {
+            Number result = InvocationSequence.asNumber(invokeOn(object));
+            return result == null ? valueIfNull : result.doubleValue();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Type;
+
+import static net.sf.cglib.asm.Opcodes.*;
+
+/**
+ * Allows the other lambdaj packages to define their generated classes in the same internal class loaders used by
+ * the {@link InvokerJitter} and provides the bytecode snippets they share.
+ *
+ * @author Mario Fusco
+ */
+public final class GeneratedClasses {
+
+    private GeneratedClasses() { }
+
+    /**
+     * Defines a class generated by the given generator in an internal class loader child of the given class loader
+     * @param parentClassLoader The class loader of the classes used by the generated class
+     * @param classNamePrefix The prefix of the name of the generated class, in the ch.lambdaj.function.argument package
+     * @param generator The generator of the bytecode of the class
+     * @return The generated class
+     */
+    public static Class<?> define(ClassLoader parentClassLoader, String classNamePrefix, ClassGenerator generator) {
+        return InvokerJitter.defineClass(parentClassLoader, classNamePrefix, generator);
+    }
+
+    /**
+     * Checks if the given class, or the component type of the given array class, can be accessed by a generated class
+     * @param clazz The class to be checked
+     * @return True if the given class is public and is not nested in a non public class
+     */
+    public static boolean isAccessible(Class<?> clazz) {
+        return InvokerJitter.isAccessible(clazz);
+    }
+
+    /**
+     * Checks if the given class can be resolved by name from the given class loader, as required to link a generated class
+     * defined in an internal class loader child of it
+     * @param clazz The class to be checked
+     * @param classLoader The class loader from which the class should be visible
+     * @return True if the given class is primitive or if the given class loader resolves its name to the same class
+     */
+    public static boolean isVisible(Class<?> clazz, ClassLoader classLoader) {
+        if (clazz.isPrimitive()) return true;
+        try {
+            return Class.forName(clazz.getName(), false, classLoader) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the internal name, as used in the bytecode, of the given class
+     * @param clazz The class of which the internal name has to be returned
+     * @return The internal name of the given class
+     */
+    public static String getInternalName(Class<?> clazz) {
+        return InvokerJitter.getClassName(clazz);
+    }
+
+    /**
+     * Generates the bytecode that boxes the value of the given type on the top of the stack. Does nothing if the type is not primitive.
+     * @param mv The visitor of the method being generated
+     * @param type The type of the value on the top of the stack
+     */
+    public static void box(MethodVisitor mv, Class<?> type) {
+        InvokerJitter.primitiveToObject(mv, type);
+    }
+
+    /**
+     * Generates the bytecode that casts the Object on the top of the stack to the given type, unboxing it if the type is primitive.
+     * The numbers are unboxed through the Number class in order to allow the same widening conversions of reflection.
+     * @param mv The visitor of the method being generated
+     * @param type The type to which the Object on the top of the stack has to be converted
+     */
+    public static void unbox(MethodVisitor mv, Class<?> type) {
+        if (!type.isPrimitive()) {
+            if (type != Object.class) mv.visitTypeInsn(CHECKCAST, getInternalName(type));
+        } else if (type == boolean.class) {
+            mv.visitTypeInsn(CHECKCAST, "java/lang/Boolean");
+            mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z");
+        } else if (type == char.class) {
+            mv.visitTypeInsn(CHECKCAST, "java/lang/Character");
+            mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Character", "charValue", "()C");
+        } else {
+            mv.visitTypeInsn(CHECKCAST, "java/lang/Number");
+            mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Number", type.getName() + "Value", "()" + Type.getDescriptor(type));
+        }
+    }
+}
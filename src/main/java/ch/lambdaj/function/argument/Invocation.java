@@ -18,10 +18,13 @@ import ch.lambdaj.util.*;
  */
 final class Invocation {
 
+    static final Object[] NO_ARGS = new Object[0];
+
     private final Class<?> invokedClass;
     private final Method invokedMethod;
     private String invokedPropertyName;
     private ParameterReference[] weakArgs;
+    private Object[] constantArgs = NO_ARGS;
     private transient int hashCode;
     Invocation previousInvocation;
 
@@ -31,18 +34,26 @@ final class Invocation {
         invokedMethod.setAccessible(true);
         if (args != null && args.length > 0) {
             weakArgs = new ParameterReference[args.length];
+            Class<?>[] parameterTypes = invokedMethod.getParameterTypes();
+            boolean allPrimitives = true;
             for (int i = 0; i < args.length; i++) {
-                weakArgs[i] = invokedMethod.getParameterTypes()[i].isPrimitive() ? new StrongParameterReference(args[i]) : new WeakParameterReference(args[i]);
+                weakArgs[i] = parameterTypes[i].isPrimitive() ? new StrongParameterReference(args[i]) : new WeakParameterReference(args[i]);
+                allPrimitives &= parameterTypes[i].isPrimitive();
             }
+            constantArgs = allPrimitives ? args.clone() : null;
         }
     }
 
-    boolean hasArguments() {
-        return weakArgs != null;
+    /**
+     * Returns the arguments of this invocation if they can be reused for all its evaluations, i.e. when all of them
+     * are strongly referenced, or null if they have to be rebuilt from their weak references at every evaluation.
+     */
+    Object[] getConstantArgs() {
+        return constantArgs;
     }
 
-    private Object[] getConcreteArgs() {
-        if (weakArgs == null) return new Object[0];
+    Object[] getConcreteArgs() {
+        if (constantArgs != null) return constantArgs;
         Object[] args = new Object[weakArgs.length];
         for (int i = 0; i < weakArgs.length; i++) {
             args[i] = weakArgs[i].get();
@@ -67,15 +78,6 @@ final class Invocation {
         return invokedPropertyName;
     }
 
-    Object invokeOn(Object object) {
-        try {
-            return object == null ? null : invokedMethod.invoke(object, getConcreteArgs());
-        } catch (Exception e) {
-            if (e instanceof RuntimeException) throw (RuntimeException)e;
-            throw new RuntimeException(e);
-        }
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -4,9 +4,6 @@
 
 package ch.lambdaj.function.argument;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -15,32 +12,78 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @author Mario Fusco
  * @author Frode Carlsen
  */
-final class InvocationSequence implements Invoker {
+final class InvocationSequence implements PrimitiveInvoker {
+
+    static final int DEFAULT_JIT_THRESHOLD = 100;
 
     private static boolean jittingEnabled = false;
-    private static ExecutorService executor;
+    private static volatile int jittingGeneration = 0;
+    private static volatile JitCompiler compiler;
+    private static int compilerParallelism = JitCompiler.DEFAULT_PARALLELISM;
+    private static int compilerQueueCapacity = JitCompiler.DEFAULT_QUEUE_CAPACITY;
+
+    private static volatile int jitThreshold = DEFAULT_JIT_THRESHOLD;
+    private static volatile JitMode jitMode = JitMode.ASYNCHRONOUS;
 
-    static void enableJitting(boolean enable) {
+    static synchronized void enableJitting(boolean enable) {
         if (enable) {
+            if (!jittingEnabled) jittingGeneration++;
             jittingEnabled = true;
-            if (executor == null) {
-                executor = Executors.newCachedThreadPool(new ThreadFactory() {
-                    public Thread newThread(Runnable r) {
-                        Thread t = new Thread(r);
-                        t.setDaemon(true);
-                        return t;
-                    }
-                });
-            }
+            if (compiler == null) compiler = new JitCompiler(compilerParallelism, compilerQueueCapacity);
         } else {
             jittingEnabled = false;
-            if (executor != null) {
-                executor.shutdown();
-                executor = null;
+            if (compiler != null) {
+                compiler.shutdown();
+                compiler = null;
             }
         }
     }
 
+    static boolean isJittingEnabled() {
+        return jittingEnabled;
+    }
+
+    /**
+     * Returns how many times the jitting has been enabled, so what has been decided
+     * while it was disabled can be reconsidered once it gets enabled again
+     */
+    static int getJittingGeneration() {
+        return jittingGeneration;
+    }
+
+    static synchronized void configureJitCompiler(int parallelism, int queueCapacity) {
+        JitCompiler newCompiler = new JitCompiler(parallelism, queueCapacity);
+        compilerParallelism = parallelism;
+        compilerQueueCapacity = queueCapacity;
+        if (compiler != null) {
+            compiler.shutdown();
+            compiler = newCompiler;
+        }
+    }
+
+    static JitStatistics getJitStatistics() {
+        JitCompiler jitCompiler = compiler;
+        return jitCompiler == null ? new JitStatistics(0, 0, 0, 0, 0) : jitCompiler.getStatistics();
+    }
+
+    static void setJitThreshold(int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("The jit threshold cannot be negative: " + threshold);
+        jitThreshold = threshold;
+    }
+
+    static int getJitThreshold() {
+        return jitThreshold;
+    }
+
+    static void setJitMode(JitMode mode) {
+        if (mode == null) throw new IllegalArgumentException("The jit mode cannot be null");
+        jitMode = mode;
+    }
+
+    static JitMode getJitMode() {
+        return jitMode;
+    }
+
     private final Class<?> rootInvokedClass;
     private String inkvokedPropertyName;
     Invocation lastInvocation;
@@ -48,8 +91,13 @@ final class InvocationSequence implements Invoker {
 
     private boolean jitDone;
     private AtomicBoolean needsJitting;
+    private int invocationCounter;
 
-    private Invoker invoker = this;
+    private volatile Invoker invoker = this;
+    private FlattenedInvocationSequence flattenedSequence;
+
+    // the hits and the misses of the inline caches of the jitted invoker
+    private final long[] inlineCacheCounters = new long[2];
 
     InvocationSequence(Class<?> rootInvokedClass) {
         this.rootInvokedClass = rootInvokedClass;
@@ -60,11 +108,23 @@ final class InvocationSequence implements Invoker {
         rootInvokedClass = sequence.getRootInvokedClass();
         invocation.previousInvocation = sequence.lastInvocation;
         lastInvocation = invocation;
-        boolean isJittable = jittingEnabled && isJittable(lastInvocation);
+        boolean isJittable = jittingEnabled && InvokerJitter.isJittable(this);
         if (isJittable) needsJitting = new AtomicBoolean(isJittable);
         jitDone = !isJittable;
     }
 
+    /**
+     * Evaluates this sequence through the invoker generated at build time for it, if any.
+     * It is done only once, when the argument defined by this sequence is registered.
+     */
+    void usePrecompiledInvoker() {
+        if (lastInvocation == null) return;
+        Invoker precompiledInvoker = PrecompiledInvokers.getInvoker(this);
+        if (precompiledInvoker == null) return;
+        invoker = precompiledInvoker;
+        jitDone = true;
+    }
+
     Class<?> getRootInvokedClass() {
         return rootInvokedClass;
     }
@@ -117,32 +177,137 @@ final class InvocationSequence implements Invoker {
         return hashCode;
     }
 
-    public Object evaluate(final Object object) {
-        if (!jitDone && needsJitting.compareAndSet(true, false)) {
-            jitDone = true;
-            if (executor != null) {
-                executor.submit(new Runnable() {
-                    public void run() {
-                        invoker = new InvokerJitter(object, InvocationSequence.this).jitInvoker();
-                    }
-                });
-            }
-        }
+    public Object evaluate(Object object) {
+        countEvaluation();
         return invoker.invokeOn(object);
     }
 
+    int evaluateInt(Object object, int valueIfNull) {
+        countEvaluation();
+        Invoker currentInvoker = invoker;
+        if (currentInvoker instanceof PrimitiveInvoker) return ((PrimitiveInvoker)currentInvoker).invokeOnInt(object, valueIfNull);
+        Number result = asNumber(currentInvoker.invokeOn(object));
+        return result == null ? valueIfNull : result.intValue();
+    }
+
+    long evaluateLong(Object object, long valueIfNull) {
+        countEvaluation();
+        Invoker currentInvoker = invoker;
+        if (currentInvoker instanceof PrimitiveInvoker) return ((PrimitiveInvoker)currentInvoker).invokeOnLong(object, valueIfNull);
+        Number result = asNumber(currentInvoker.invokeOn(object));
+        return result == null ? valueIfNull : result.longValue();
+    }
+
+    double evaluateDouble(Object object, double valueIfNull) {
+        countEvaluation();
+        Invoker currentInvoker = invoker;
+        if (currentInvoker instanceof PrimitiveInvoker) return ((PrimitiveInvoker)currentInvoker).invokeOnDouble(object, valueIfNull);
+        Number result = asNumber(currentInvoker.invokeOn(object));
+        return result == null ? valueIfNull : result.doubleValue();
+    }
+
+    private void countEvaluation() {
+        // the counter is deliberately not synchronized: a few lost increments only delay the compilation.
+        // It keeps being incremented while the sequence is queued in order to compile the hottest sequences first
+        if (!jitDone && ++invocationCounter >= jitThreshold && needsJitting.get()) jit();
+    }
+
+    int getInvocationCounter() {
+        return invocationCounter;
+    }
+
+    boolean isJitted() {
+        return invoker != this;
+    }
+
+    /**
+     * Compiles this invocation sequence if it hasn't been done yet and the jit mode is eager
+     */
+    void jitEagerly() {
+        if (!jitDone && jitMode == JitMode.EAGER) jit();
+    }
+
+    private void jit() {
+        if (!needsJitting.compareAndSet(true, false)) return;
+        JitCompiler jitCompiler = compiler;
+        if (jitMode == JitMode.ASYNCHRONOUS && jitCompiler != null) jitCompiler.submit(this);
+        else if (jitMode != JitMode.ASYNCHRONOUS) compile();
+        else jitDone = true;
+    }
+
+    /**
+     * Makes this sequence to be submitted again for compilation after other jitThreshold evaluations
+     */
+    void rearmJitting() {
+        invocationCounter = 0;
+        needsJitting.set(true);
+    }
+
+    /**
+     * Compiles this invocation sequence
+     * @return True if the compilation succeeded, false if this sequence keeps being evaluated through reflection
+     */
+    boolean compile() {
+        jitDone = true;
+        try {
+            invoker = InvokerJitter.getInvoker(rootInvokedClass.getClassLoader(), this);
+            getFlattenedSequence().stopProfiling();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        } catch (LinkageError e) {
+            // the class loader of the root class cannot see lambdaj or the generated class is invalid
+            return false;
+        }
+    }
+
+    long[] getInlineCacheCounters() {
+        return inlineCacheCounters;
+    }
+
+    /**
+     * Returns how many times the jitted invoker found the object on which an invocation is performed
+     * to be of one of the classes profiled before the compilation
+     */
+    long getInlineCacheHits() {
+        return inlineCacheCounters[0];
+    }
+
+    /**
+     * Returns how many times the jitted invoker found the object on which an invocation is performed
+     * to be of a class not profiled before the compilation
+     */
+    long getInlineCacheMisses() {
+        return inlineCacheCounters[1];
+    }
+
+    FlattenedInvocationSequence getFlattenedSequence() {
+        if (flattenedSequence == null) flattenedSequence = new FlattenedInvocationSequence(lastInvocation);
+        return flattenedSequence;
+    }
+
     public Object invokeOn(Object object) {
-        return invokeOn(lastInvocation, object);
+        if (lastInvocation == null) return object;
+        return getFlattenedSequence().invokeOn(object);
+    }
+
+    public int invokeOnInt(Object object, int valueIfNull) {
+        Number result = asNumber(invokeOn(object));
+        return result == null ? valueIfNull : result.intValue();
+    }
+
+    public long invokeOnLong(Object object, long valueIfNull) {
+        Number result = asNumber(invokeOn(object));
+        return result == null ? valueIfNull : result.longValue();
     }
 
-    private Object invokeOn(Invocation invocation, Object value) {
-        if (invocation == null) return value;
-        if (invocation.previousInvocation != null) value = invokeOn(invocation.previousInvocation, value);
-        return invocation.invokeOn(value);
+    public double invokeOnDouble(Object object, double valueIfNull) {
+        Number result = asNumber(invokeOn(object));
+        return result == null ? valueIfNull : result.doubleValue();
     }
 
-    private boolean isJittable(Invocation invocation) {
-        return !invocation.hasArguments() && (invocation.previousInvocation == null || isJittable(invocation.previousInvocation));
+    static Number asNumber(Object value) {
+        return value instanceof Character ? Integer.valueOf((Character)value) : (Number)value;
     }
 
     @Override
@@ -0,0 +1,145 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Generates at build time the invokers of the arguments declared by the {@link PrecompiledArguments} annotations
+ * of the given classes. The invoker classes are written in the given output directory together with the index
+ * that allows lambdaj to find them at runtime, so these arguments are evaluated without generating any bytecode.
+ * It is meant to be run on the compiled classes, e.g. in the process-classes phase of a Maven build through the
+ * exec-maven-plugin, with the classes directory as output directory:
+ * <pre>
+ * java ch.lambdaj.function.argument.InvokerGenerator target/classes com.acme.Person com.acme.Address
+ * </pre>
+ *
+ * @author Mario Fusco
+ */
+public final class InvokerGenerator {
+
+    private static final String INVOKER_CLASS_SUFFIX = "$$LambdajInvoker_";
+
+    private final File outputDirectory;
+    private final Properties index = new Properties();
+
+    /**
+     * Creates a generator writing the invokers in the given directory
+     * @param outputDirectory The root directory of the generated classes
+     * @throws IOException if the already existing index cannot be read
+     */
+    public InvokerGenerator(File outputDirectory) throws IOException {
+        this.outputDirectory = outputDirectory;
+        File indexFile = getIndexFile();
+        if (indexFile.exists()) {
+            InputStream stream = new FileInputStream(indexFile);
+            try {
+                index.load(stream);
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * Generates the invokers for the arguments declared on the given annotated classes and updates the index
+     * @param classes The classes annotated with {@link PrecompiledArguments}
+     * @return The number of generated invokers
+     * @throws IOException if the generated classes or the index cannot be written
+     */
+    public int generate(Class<?>... classes) throws IOException {
+        int generated = 0;
+        for (Class<?> clazz : classes) {
+            PrecompiledArguments arguments = clazz.getAnnotation(PrecompiledArguments.class);
+            if (arguments == null) throw new IllegalArgumentException("The class " + clazz.getName() + " is not annotated with @PrecompiledArguments");
+            for (String path : arguments.value()) {
+                generateInvoker(clazz, path, ++generated);
+            }
+        }
+        writeIndex();
+        return generated;
+    }
+
+    private void generateInvoker(Class<?> rootClass, String path, int counter) throws IOException {
+        InvocationSequence sequence = createInvocationSequence(rootClass, path);
+        if (!InvokerJitter.isJittable(sequence))
+            throw new IllegalArgumentException("The argument " + path + " on " + rootClass.getName() + " involves non public classes or methods");
+        String className = rootClass.getName().replace('.', '/') + INVOKER_CLASS_SUFFIX + counter;
+        byte[] bytecode = new InvokerJitter(rootClass.getClassLoader(), sequence).generateBytecode(className);
+        File classFile = new File(outputDirectory, className + ".class");
+        classFile.getParentFile().mkdirs();
+        write(classFile, bytecode);
+        index.setProperty(PrecompiledInvokers.getKey(sequence), className.replace('/', '.'));
+    }
+
+    private InvocationSequence createInvocationSequence(Class<?> rootClass, String path) {
+        InvocationSequence sequence = new InvocationSequence(rootClass);
+        Class<?> invokedClass = rootClass;
+        for (String property : path.split("\\.")) {
+            Method method = findAccessor(invokedClass, property);
+            sequence = new InvocationSequence(sequence, new Invocation(invokedClass, method, null));
+            invokedClass = method.getReturnType();
+        }
+        return sequence;
+    }
+
+    private Method findAccessor(Class<?> clazz, String property) {
+        String accessorName = property.substring(0, 1).toUpperCase(Locale.ENGLISH) + property.substring(1);
+        for (String methodName : new String[] { "get" + accessorName, "is" + accessorName, property }) {
+            try {
+                return clazz.getMethod(methodName);
+            } catch (NoSuchMethodException e) { }
+        }
+        throw new IllegalArgumentException("Unknown property " + property + " on class " + clazz.getName());
+    }
+
+    private void writeIndex() throws IOException {
+        File indexFile = getIndexFile();
+        indexFile.getParentFile().mkdirs();
+        OutputStream stream = new FileOutputStream(indexFile);
+        try {
+            index.store(stream, "lambdaj pregenerated invokers");
+        } finally {
+            stream.close();
+        }
+    }
+
+    private File getIndexFile() {
+        return new File(outputDirectory, PrecompiledInvokers.INDEX_RESOURCE);
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(bytes);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Generates the invokers of the given classes
+     * @param args The output directory followed by the names of the classes annotated with {@link PrecompiledArguments}
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: InvokerGenerator <outputDirectory> <className>...");
+            System.exit(1);
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Class<?>[] classes = new Class<?>[args.length - 1];
+        for (int i = 1; i < args.length; i++) classes[i - 1] = Class.forName(args[i], false, classLoader);
+        int generated = new InvokerGenerator(new File(args[0])).generate(classes);
+        System.out.println("Generated " + generated + " lambdaj invokers in " + args[0]);
+    }
+}
@@ -7,109 +7,578 @@ package ch.lambdaj.function.argument;
 import net.sf.cglib.asm.ClassWriter;
 import net.sf.cglib.asm.Label;
 import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Type;
 
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import static net.sf.cglib.asm.Opcodes.*;
 
-class InvokerJitter {
+/**
+ * Compiles an invocation sequence in the bytecode of an {@link Invoker}. Each invocation is guarded by an inline
+ * cache checking if the object on which it is performed is exactly of one of the classes profiled while the sequence
+ * was evaluated through reflection: in this case the method is statically bound to that class. Otherwise it is
+ * virtually invoked on the class declaring it or, if the object isn't even an instance of that class, the evaluation
+ * falls back to the reflective one starting from that invocation.
+ *
+ * @author Mario Fusco
+ */
+class InvokerJitter implements ClassGenerator {
 
-    private static final AtomicInteger jitCounter = new AtomicInteger(1);
+    private static final String ARGS_FIELD = "args";
+    private static final String FALLBACKS_FIELD = "fallbacks";
+    private static final String COUNTERS_FIELD = "counters";
 
-    private final InternalClassLoader classLoader;
-    private final InvocationSequence invocationSequence;
+    private static final String INVOKER_CLASS_NAME = "ch/lambdaj/function/argument/Invoker";
+    private static final String PRIMITIVE_INVOKER_CLASS_NAME = "ch/lambdaj/function/argument/PrimitiveInvoker";
+    private static final String INVOKER_DESCRIPTOR = "[L" + INVOKER_CLASS_NAME + ";";
 
-    InvokerJitter(Object invokedObject, InvocationSequence invocationSequence) {
-        this(invokedObject.getClass().getClassLoader(), invocationSequence);
-    }
+    private static final int HITS_COUNTER = 0;
+    private static final int MISSES_COUNTER = 1;
+
+    private static final int MAX_CLASSES_PER_LOADER = 64;
+
+    private static final Map<ClassLoader, WeakReference<InternalClassLoader>> LOADERS = new WeakHashMap<ClassLoader, WeakReference<InternalClassLoader>>();
+
+    private static final Map<List<Object>, WeakReference<Class<?>>> INVOKER_CLASSES = new WeakHashMap<List<Object>, WeakReference<Class<?>>>();
+
+    private static final Object REFERENCE_ARGUMENT = new Object();
+
+    private final ClassLoader parentClassLoader;
+    private final InvocationSequence invocationSequence;
+    private final List<Invocation> invocations = new ArrayList<Invocation>();
+    private final List<Object[]> concreteArgs = new ArrayList<Object[]>();
+    private final int[] firstReferenceSlots;
+    private Class<?>[][] profiledTypes;
 
     InvokerJitter(ClassLoader classLoader, InvocationSequence invocationSequence) {
-        this.classLoader = new InternalClassLoader(classLoader);;
+        this.parentClassLoader = classLoader != null ? classLoader : Invoker.class.getClassLoader();
         this.invocationSequence = invocationSequence;
+        // the arguments are read only once, so the jitted code and the reference arguments passed to the invoker
+        // agree on which of them are references even if a weakly referenced one is garbage collected in the meanwhile
+        for (Invocation invocation = invocationSequence.lastInvocation; invocation != null; invocation = invocation.previousInvocation) {
+            invocations.add(0, invocation);
+            concreteArgs.add(0, invocation.getConcreteArgs());
+        }
+        // each reference argument has a fixed slot in the args of the invoker, read by all the copies of its invocation
+        firstReferenceSlots = new int[invocations.size()];
+        for (int i = 1; i < firstReferenceSlots.length; i++) {
+            firstReferenceSlots[i] = firstReferenceSlots[i - 1] + countReferenceArgs(i - 1);
+        }
+    }
+
+    private int countReferenceArgs(int i) {
+        Class<?>[] parameterTypes = invocations.get(i).getInvokedMethod().getParameterTypes();
+        Object[] args = concreteArgs.get(i);
+        int count = 0;
+        for (int j = 0; j < parameterTypes.length; j++) {
+            if (isReferenceArgument(parameterTypes[j], args[j])) count++;
+        }
+        return count;
+    }
+
+    private void profileTypes() {
+        profiledTypes = new Class<?>[invocations.size()][];
+        FlattenedInvocationSequence flattenedSequence = invocationSequence.getFlattenedSequence();
+        for (int i = 0; i < profiledTypes.length; i++) {
+            profiledTypes[i] = getCacheableTypes(flattenedSequence.getProfiledTypes(i), invocations.get(i));
+        }
+    }
+
+    /**
+     * Returns the profiled classes that the jitted code can reference and for which the invoked method can be
+     * statically bound, i.e. the public classes visible from the class loader of the root class of the sequence
+     */
+    private Class<?>[] getCacheableTypes(Class<?>[] types, Invocation invocation) {
+        List<Class<?>> cacheableTypes = new ArrayList<Class<?>>();
+        for (Class<?> type : types) {
+            if (invocation.getInvokedClass().isAssignableFrom(type) && isAccessible(type) && isVisible(type)) cacheableTypes.add(type);
+        }
+        return cacheableTypes.toArray(new Class<?>[cacheableTypes.size()]);
+    }
+
+    private boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, parentClassLoader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a compiled invoker for the given invocation sequence. The invoker class generated for a sequence with
+     * the same shape is reused if it is still reachable, so identical invocation paths share the same class, even if
+     * the receivers' classes profiled for the given sequence could be different from the ones of the other sequence.
+     * @param classLoader The class loader of the root class of the invocation sequence
+     * @param invocationSequence The invocation sequence to be compiled
+     * @return The invoker executing the given invocation sequence
+     */
+    static Invoker getInvoker(ClassLoader classLoader, InvocationSequence invocationSequence) {
+        InvokerJitter jitter = new InvokerJitter(classLoader, invocationSequence);
+        List<Object> shape = jitter.getShape();
+        Class<?> invokerClass = getRegisteredInvokerClass(shape);
+        if (invokerClass == null) {
+            invokerClass = jitter.jitInvokerClass();
+            synchronized (INVOKER_CLASSES) {
+                Class<?> registeredClass = getRegisteredInvokerClass(shape);
+                if (registeredClass != null) invokerClass = registeredClass;
+                else {
+                    // the shape is weakly referenced by the cache: it stays there as long as the loader of the class is alive
+                    ((InternalClassLoader)invokerClass.getClassLoader()).retain(shape);
+                    INVOKER_CLASSES.put(shape, new WeakReference<Class<?>>(invokerClass));
+                }
+            }
+        }
+        return jitter.newInvoker(invokerClass);
+    }
+
+    private static Class<?> getRegisteredInvokerClass(List<Object> shape) {
+        synchronized (INVOKER_CLASSES) {
+            WeakReference<Class<?>> classRef = INVOKER_CLASSES.get(shape);
+            return classRef == null ? null : classRef.get();
+        }
     }
 
-    Invoker jitInvoker() {
+    /**
+     * Returns what determines the bytecode of the invoker of the sequence: the invoked classes and methods together
+     * with their constant arguments. A reference argument is only a slot of the args read by the invoker, so it is
+     * represented by a marker regardless of its actual value.
+     */
+    private List<Object> getShape() {
+        List<Object> shape = new ArrayList<Object>();
+        for (int i = 0; i < invocations.size(); i++) {
+            Method method = invocations.get(i).getInvokedMethod();
+            shape.add(invocations.get(i).getInvokedClass());
+            shape.add(method);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            Object[] args = concreteArgs.get(i);
+            for (int j = 0; j < parameterTypes.length; j++) {
+                shape.add(isReferenceArgument(parameterTypes[j], args[j]) ? REFERENCE_ARGUMENT : args[j]);
+            }
+        }
+        return shape;
+    }
+
+    PrimitiveInvoker jitInvoker() {
+        return (PrimitiveInvoker)newInvoker(jitInvokerClass());
+    }
+
+    private Class<?> jitInvokerClass() {
+        return defineClass(parentClassLoader, "Invoker_", this);
+    }
+
+    static Invoker newInvoker(Class<?> invokerClass, InvocationSequence invocationSequence) {
+        return new InvokerJitter(invokerClass.getClassLoader(), invocationSequence).newInvoker(invokerClass);
+    }
+
+    private Invoker newInvoker(Class<?> invokerClass) {
         try {
-            int id = jitCounter.getAndIncrement();
-            Class<?> clazz = classLoader.defineClass("ch.lambdaj.function.argument.Invoker_" + id, generateBytecode(id));
-            return (Invoker)clazz.newInstance();
+            Invoker[] fallbacks = invocationSequence.getFlattenedSequence().getFallbackInvokers();
+            return (Invoker)invokerClass.getConstructor(Object[].class, Invoker[].class, long[].class)
+                    .newInstance(getReferenceArgs(), fallbacks, invocationSequence.getInlineCacheCounters());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private byte[] generateBytecode(int id) {
-        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS + ClassWriter.COMPUTE_FRAMES);
-        cw.visit(V1_5, ACC_PUBLIC + ACC_SUPER, "ch/lambdaj/function/argument/Invoker_" + id, null, "java/lang/Object", new String[]{"ch/lambdaj/function/argument/Invoker"});
-        jitEmptyConstructor(cw);
-        jitInvocationMethod(cw);
+    // the non constant arguments are weakly referenced by the jitted invoker as they are by the invocation itself
+    private Object[] getReferenceArgs() {
+        List<Object> referenceArgs = new ArrayList<Object>();
+        for (int i = 0; i < invocations.size(); i++) {
+            Class<?>[] parameterTypes = invocations.get(i).getInvokedMethod().getParameterTypes();
+            Object[] args = concreteArgs.get(i);
+            for (int j = 0; j < parameterTypes.length; j++) {
+                if (isReferenceArgument(parameterTypes[j], args[j])) referenceArgs.add(new WeakReference<Object>(args[j]));
+            }
+        }
+        return referenceArgs.toArray();
+    }
+
+    private static boolean isReferenceArgument(Class<?> parameterType, Object arg) {
+        return !parameterType.isPrimitive() && arg != null && parameterType != String.class;
+    }
+
+    /**
+     * Defines a class generated by the given generator in an internal class loader child of the given class loader
+     * @param parentClassLoader The class loader of the classes used by the generated class
+     * @param classNamePrefix The prefix of the name of the generated class, in the ch.lambdaj.function.argument package
+     * @param generator The generator of the bytecode of the class
+     * @return The generated class
+     */
+    static Class<?> defineClass(ClassLoader parentClassLoader, String classNamePrefix, ClassGenerator generator) {
+        return getInternalClassLoader(parentClassLoader).defineGeneratedClass(classNamePrefix, generator);
+    }
+
+    /**
+     * Returns the loader in which the invokers for the classes loaded by the given class loader are defined.
+     * The same loader is reused until it defines {@link #MAX_CLASSES_PER_LOADER} classes. Since it is weakly
+     * referenced it can be garbage collected, together with all the classes it defined, as soon as none of
+     * its invokers is reachable anymore.
+     */
+    private static InternalClassLoader getInternalClassLoader(ClassLoader parentClassLoader) {
+        synchronized (LOADERS) {
+            WeakReference<InternalClassLoader> loaderRef = LOADERS.get(parentClassLoader);
+            InternalClassLoader loader = loaderRef == null ? null : loaderRef.get();
+            if (loader == null || loader.isFull()) {
+                loader = new InternalClassLoader(parentClassLoader);
+                LOADERS.put(parentClassLoader, new WeakReference<InternalClassLoader>(loader));
+            }
+            return loader;
+        }
+    }
+
+    /**
+     * Checks if the given invocation sequence can be compiled in bytecode. That's possible only when the jitted
+     * code can legally access all the classes and methods involved in the invocations sequence.
+     * @param invocationSequence The invocation sequence to be checked
+     * @return True if the given invocation sequence can be jitted, false otherwise
+     */
+    static boolean isJittable(InvocationSequence invocationSequence) {
+        if (!isAccessible(invocationSequence.getRootInvokedClass())) return false;
+        for (Invocation invocation = invocationSequence.lastInvocation; invocation != null; invocation = invocation.previousInvocation) {
+            if (!isJittable(invocation)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isJittable(Invocation invocation) {
+        Method method = invocation.getInvokedMethod();
+        if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) return false;
+        if (!isAccessible(invocation.getInvokedClass())) return false;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isAccessible(parameterType)) return false;
+        }
+        return true;
+    }
+
+    static boolean isAccessible(Class<?> clazz) {
+        while (clazz.isArray()) clazz = clazz.getComponentType();
+        if (clazz.isPrimitive()) return true;
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) return false;
+        }
+        return true;
+    }
+
+    public byte[] generateBytecode(String className) {
+        if (profiledTypes == null) profileTypes();
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_5, ACC_PUBLIC + ACC_SUPER, className, null, "java/lang/Object", new String[]{PRIMITIVE_INVOKER_CLASS_NAME});
+        cw.visitField(ACC_PRIVATE + ACC_FINAL, ARGS_FIELD, "[Ljava/lang/Object;", null, null).visitEnd();
+        cw.visitField(ACC_PRIVATE + ACC_FINAL, FALLBACKS_FIELD, INVOKER_DESCRIPTOR, null, null).visitEnd();
+        cw.visitField(ACC_PRIVATE + ACC_FINAL, COUNTERS_FIELD, "[J", null, null).visitEnd();
+        jitConstructor(cw, className);
+        jitInvocationMethod(cw, className, "invokeOn", Object.class);
+        jitInvocationMethod(cw, className, "invokeOnInt", int.class);
+        jitInvocationMethod(cw, className, "invokeOnLong", long.class);
+        jitInvocationMethod(cw, className, "invokeOnDouble", double.class);
         cw.visitEnd();
         return cw.toByteArray();
     }
 
-    private void jitEmptyConstructor(ClassWriter cw) {
-        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    private void jitConstructor(ClassWriter cw, String className) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;" + INVOKER_DESCRIPTOR + "[J)V", null, null);
         mv.visitCode();
         mv.visitVarInsn(ALOAD, 0);
         mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitFieldInsn(PUTFIELD, className, ARGS_FIELD, "[Ljava/lang/Object;");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitFieldInsn(PUTFIELD, className, FALLBACKS_FIELD, INVOKER_DESCRIPTOR);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitFieldInsn(PUTFIELD, className, COUNTERS_FIELD, "[J");
         mv.visitInsn(RETURN);
         mv.visitMaxs(0, 0);
         mv.visitEnd();
     }
 
-    private void jitInvocationMethod(ClassWriter cw) {
-        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "invokeOn", "(Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+    /**
+     * Generates a method evaluating the invocation sequence that returns the given type. The methods returning
+     * a primitive take as second parameter the value to be returned when the evaluation meets a null.
+     */
+    private void jitInvocationMethod(ClassWriter cw, String className, String methodName, Class<?> resultType) {
+        String descriptor = resultType == Object.class ? "(Ljava/lang/Object;)Ljava/lang/Object;" : "(Ljava/lang/Object;" + Type.getDescriptor(resultType) + ")" + Type.getDescriptor(resultType);
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, methodName, descriptor, null, null);
         mv.visitCode();
-        mv.visitVarInsn(ALOAD, 1);
-        jitInvocationSequence(mv);
-        mv.visitInsn(ARETURN);
+        ResultTypeHandler handler = new ResultTypeHandler(resultType);
+        jitInvocationSequence(mv, className, handler);
+        handler.jitResult(mv, invocationSequence.getReturnType());
         mv.visitMaxs(0, 0);
         mv.visitEnd();
     }
 
-    private void jitInvocationSequence(MethodVisitor mv) {
+    private void jitInvocationSequence(MethodVisitor mv, String className, ResultTypeHandler handler) {
         mv.visitVarInsn(ALOAD, 1);
-        mv.visitTypeInsn(CHECKCAST, getClassName(invocationSequence.getRootInvokedClass()));
-        jitInvocation(mv, invocationSequence.lastInvocation);
+        for (int i = 0; i < invocations.size(); i++) jitInvocation(mv, className, handler, i);
     }
 
-    private void jitInvocation(MethodVisitor mv, Invocation invocation) {
-        if (invocation.previousInvocation != null) jitInvocation(mv, invocation.previousInvocation);
-        mv.visitVarInsn(ASTORE, 2);
-        Label nonNull = new Label();
-        mv.visitVarInsn(ALOAD, 2);
-        mv.visitJumpInsn(IFNONNULL, nonNull);
-        mv.visitInsn(ACONST_NULL);
-        mv.visitInsn(ARETURN);
-        mv.visitLabel(nonNull);
-        mv.visitVarInsn(ALOAD, 2);
+    /**
+     * Generates the inline cache for the i-th invocation of the sequence, followed by its generic invocation
+     * for the receivers not in the cache and by the fallback to the reflective evaluation.
+     */
+    private void jitInvocation(MethodVisitor mv, String className, ResultTypeHandler handler, int i) {
+        handler.jitStoreReceiver(mv);
+        Invocation invocation = invocations.get(i);
+        Label end = new Label();
+        for (Class<?> cachedType : profiledTypes[i]) jitCachedInvocation(mv, className, handler, i, cachedType, end);
+        if (profiledTypes[i].length > 0) jitIncrementCounter(mv, className, MISSES_COUNTER);
+
+        Label fallback = new Label();
+        mv.visitVarInsn(ALOAD, handler.receiverLocal);
+        mv.visitTypeInsn(INSTANCEOF, getClassName(invocation.getInvokedClass()));
+        mv.visitJumpInsn(IFEQ, fallback);
+        mv.visitVarInsn(ALOAD, handler.receiverLocal);
+        Method method = invocation.getInvokedMethod();
+        Field field = AccessorAnalyzer.getAccessedField(method);
+        if (field != null && isAccessible(field) && isAccessible(method.getDeclaringClass())) {
+            jitFieldAccess(mv, className, i, field);
+        } else {
+            jitMethodInvocation(mv, className, i);
+        }
+        mv.visitJumpInsn(GOTO, end);
+
+        mv.visitLabel(fallback);
+        if (profiledTypes[i].length == 0) jitIncrementCounter(mv, className, MISSES_COUNTER);
+        handler.jitFallback(mv, className, i);
+        mv.visitLabel(end);
+    }
+
+    /**
+     * Performs the invocation statically bound to the given class if the receiver is exactly of that class
+     */
+    private void jitCachedInvocation(MethodVisitor mv, String className, ResultTypeHandler handler, int i, Class<?> cachedType, Label end) {
+        Invocation invocation = invocations.get(i);
+        Label next = new Label();
+        mv.visitVarInsn(ALOAD, handler.receiverLocal);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Object", "getClass", "()Ljava/lang/Class;");
+        mv.visitLdcInsn(Type.getType(cachedType));
+        mv.visitJumpInsn(IF_ACMPNE, next);
+        jitIncrementCounter(mv, className, HITS_COUNTER);
+        mv.visitVarInsn(ALOAD, handler.receiverLocal);
+        String cachedClassName = getClassName(cachedType);
+        mv.visitTypeInsn(CHECKCAST, cachedClassName);
         Method method = invocation.getInvokedMethod();
-        if (method.getDeclaringClass().isInterface()) {
-            mv.visitMethodInsn(INVOKEINTERFACE, getClassName(method.getDeclaringClass()), method.getName(), "()" + getInternalName(method.getReturnType()));
+        Field field = AccessorAnalyzer.getAccessedField(method);
+        if (field != null && isAccessible(field) && !FlattenedInvocationSequence.isOverridden(method, cachedType)) {
+            mv.visitFieldInsn(GETFIELD, getClassName(field.getDeclaringClass()), field.getName(), Type.getDescriptor(field.getType()));
         } else {
-            mv.visitMethodInsn(INVOKEVIRTUAL, getClassName(method.getDeclaringClass()), method.getName(), "()" + getInternalName(method.getReturnType()));
+            jitArguments(mv, className, i);
+            mv.visitMethodInsn(INVOKEVIRTUAL, cachedClassName, method.getName(), Type.getMethodDescriptor(method));
         }
-        primitiveToObject(mv, method.getReturnType());
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(next);
     }
 
-    private String getClassName(Class<?> clazz) {
+    // the counters are deliberately not synchronized: they are only an approximated measure of the caches' efficiency
+    private void jitIncrementCounter(MethodVisitor mv, String className, int counter) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, className, COUNTERS_FIELD, "[J");
+        mv.visitLdcInsn(counter);
+        mv.visitInsn(DUP2);
+        mv.visitInsn(LALOAD);
+        mv.visitInsn(LCONST_1);
+        mv.visitInsn(LADD);
+        mv.visitInsn(LASTORE);
+    }
+
+    private void jitMethodInvocation(MethodVisitor mv, String className, int i) {
+        Invocation invocation = invocations.get(i);
+        Class<?> invokedClass = invocation.getInvokedClass();
+        mv.visitTypeInsn(CHECKCAST, getClassName(invokedClass));
+        Method method = invocation.getInvokedMethod();
+        jitArguments(mv, className, i);
+        mv.visitMethodInsn(invokedClass.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL, getClassName(invokedClass), method.getName(), Type.getMethodDescriptor(method));
+    }
+
+    /**
+     * Reads the field returned by a trivial accessor if the object on which it is invoked is exactly of the class
+     * declaring it, so it cannot be overridden. Otherwise invokes the accessor.
+     */
+    private void jitFieldAccess(MethodVisitor mv, String className, int i, Field field) {
+        Label invokeAccessor = new Label();
+        Label end = new Label();
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Object", "getClass", "()Ljava/lang/Class;");
+        mv.visitLdcInsn(Type.getType(invocations.get(i).getInvokedMethod().getDeclaringClass()));
+        mv.visitJumpInsn(IF_ACMPNE, invokeAccessor);
+        String fieldOwner = getClassName(field.getDeclaringClass());
+        mv.visitTypeInsn(CHECKCAST, fieldOwner);
+        mv.visitFieldInsn(GETFIELD, fieldOwner, field.getName(), Type.getDescriptor(field.getType()));
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(invokeAccessor);
+        jitMethodInvocation(mv, className, i);
+        mv.visitLabel(end);
+    }
+
+    private static boolean isAccessible(Field field) {
+        return Modifier.isPublic(field.getModifiers()) && isAccessible(field.getDeclaringClass()) && isAccessible(field.getType());
+    }
+
+    /**
+     * Pushes the arguments of the i-th invocation. Since this invocation is generated once for each profiled receiver
+     * type and once more for the other receivers, each reference argument is read from its fixed slot.
+     */
+    private void jitArguments(MethodVisitor mv, String className, int invocation) {
+        Class<?>[] parameterTypes = invocations.get(invocation).getInvokedMethod().getParameterTypes();
+        Object[] args = concreteArgs.get(invocation);
+        int referenceSlot = firstReferenceSlots[invocation];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (isReferenceArgument(parameterTypes[i], args[i])) jitReferenceArgument(mv, className, parameterTypes[i], referenceSlot++);
+            else if (parameterTypes[i].isPrimitive()) jitPrimitiveConstant(mv, parameterTypes[i], args[i]);
+            else if (args[i] == null) mv.visitInsn(ACONST_NULL);
+            else mv.visitLdcInsn(args[i]);
+        }
+    }
+
+    private void jitPrimitiveConstant(MethodVisitor mv, Class<?> clazz, Object value) {
+        if (clazz == boolean.class) mv.visitInsn((Boolean)value ? ICONST_1 : ICONST_0);
+        else if (clazz == char.class) mv.visitLdcInsn((int)(Character)value);
+        else if (clazz == long.class) mv.visitLdcInsn(((Number)value).longValue());
+        else if (clazz == double.class) mv.visitLdcInsn(((Number)value).doubleValue());
+        else if (clazz == float.class) mv.visitLdcInsn(((Number)value).floatValue());
+        else mv.visitLdcInsn(((Number)value).intValue());
+    }
+
+    private void jitReferenceArgument(MethodVisitor mv, String className, Class<?> parameterType, int slot) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, className, ARGS_FIELD, "[Ljava/lang/Object;");
+        mv.visitLdcInsn(slot);
+        mv.visitInsn(AALOAD);
+        mv.visitTypeInsn(CHECKCAST, "java/lang/ref/Reference");
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/ref/Reference", "get", "()Ljava/lang/Object;");
+        mv.visitTypeInsn(CHECKCAST, getClassName(parameterType));
+    }
+
+    static String getClassName(Class<?> clazz) {
         return clazz.getName().replace('.', '/');
     }
 
-    private String getInternalName(Class<?> clazz) {
-        if (!clazz.isPrimitive()) return "L" + getClassName(clazz) + ";";
-        if (clazz == int.class) return "I";
-        if (clazz == long.class) return "J";
-        if (clazz == double.class) return "D";
-        if (clazz == float.class) return "F";
-        if (clazz == boolean.class) return "Z";
-        if (clazz == char.class) return "C";
-        if (clazz == short.class) return "S";
-        return "B";
+    /**
+     * Generates the bytecode that depends on the type returned by the jitted method
+     */
+    private static class ResultTypeHandler {
+
+        private final Class<?> resultType;
+        private final int receiverLocal;
+
+        ResultTypeHandler(Class<?> resultType) {
+            this.resultType = resultType;
+            // local 0 is this, local 1 the evaluated object, followed by the value to be returned in case of null
+            receiverLocal = resultType == Object.class ? 2 : 2 + Type.getType(resultType).getSize();
+        }
+
+        /**
+         * Returns the value for null if the reference on top of the stack is null, otherwise leaves it on the stack
+         */
+        void jitNullCheck(MethodVisitor mv) {
+            jitStoreReceiver(mv);
+            mv.visitVarInsn(ALOAD, receiverLocal);
+        }
+
+        /**
+         * Returns the value for null if the reference on top of the stack is null, otherwise stores it in the receiver local
+         */
+        void jitStoreReceiver(MethodVisitor mv) {
+            mv.visitVarInsn(ASTORE, receiverLocal);
+            Label nonNull = new Label();
+            mv.visitVarInsn(ALOAD, receiverLocal);
+            mv.visitJumpInsn(IFNONNULL, nonNull);
+            jitReturnNullValue(mv);
+            mv.visitLabel(nonNull);
+        }
+
+        /**
+         * Evaluates through reflection the invocation sequence on the receiver starting from the given invocation
+         * and returns its result
+         */
+        void jitFallback(MethodVisitor mv, String className, int invocation) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, className, FALLBACKS_FIELD, INVOKER_DESCRIPTOR);
+            mv.visitLdcInsn(invocation);
+            mv.visitInsn(AALOAD);
+            if (resultType != Object.class) mv.visitTypeInsn(CHECKCAST, PRIMITIVE_INVOKER_CLASS_NAME);
+            mv.visitVarInsn(ALOAD, receiverLocal);
+            if (resultType == Object.class) {
+                mv.visitMethodInsn(INVOKEINTERFACE, INVOKER_CLASS_NAME, "invokeOn", "(Ljava/lang/Object;)Ljava/lang/Object;");
+                mv.visitInsn(ARETURN);
+            } else {
+                Type type = Type.getType(resultType);
+                mv.visitVarInsn(type.getOpcode(ILOAD), 2);
+                String methodName = "invokeOn" + Character.toUpperCase(resultType.getName().charAt(0)) + resultType.getName().substring(1);
+                mv.visitMethodInsn(INVOKEINTERFACE, PRIMITIVE_INVOKER_CLASS_NAME, methodName, "(Ljava/lang/Object;" + type.getDescriptor() + ")" + type.getDescriptor());
+                mv.visitInsn(type.getOpcode(IRETURN));
+            }
+        }
+
+        private void jitReturnNullValue(MethodVisitor mv) {
+            if (resultType == Object.class) {
+                mv.visitInsn(ACONST_NULL);
+                mv.visitInsn(ARETURN);
+            } else {
+                Type type = Type.getType(resultType);
+                mv.visitVarInsn(type.getOpcode(ILOAD), 2);
+                mv.visitInsn(type.getOpcode(IRETURN));
+            }
+        }
+
+        /**
+         * Converts the value returned by the last invocation, of the given type, in the result type and returns it
+         */
+        void jitResult(MethodVisitor mv, Class<?> returnType) {
+            if (resultType == Object.class) {
+                primitiveToObject(mv, returnType);
+                mv.visitInsn(ARETURN);
+                return;
+            }
+            if (!returnType.isPrimitive()) {
+                jitNullCheck(mv);
+                returnType = objectToPrimitive(mv, returnType);
+            } else if (returnType == boolean.class) {
+                // a boolean cannot be converted in a number: fails as the reflective evaluation does
+                primitiveToObject(mv, returnType);
+                returnType = objectToPrimitive(mv, returnType);
+            }
+            convertPrimitive(mv, Type.getType(returnType), Type.getType(resultType));
+            mv.visitInsn(Type.getType(resultType).getOpcode(IRETURN));
+        }
+
+        private Class<?> objectToPrimitive(MethodVisitor mv, Class<?> returnType) {
+            if (returnType == Character.class) {
+                mv.visitTypeInsn(CHECKCAST, "java/lang/Character");
+                mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Character", "charValue", "()C");
+                return char.class;
+            }
+            mv.visitTypeInsn(CHECKCAST, "java/lang/Number");
+            Type type = Type.getType(resultType);
+            mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Number", resultType.getName() + "Value", "()" + type.getDescriptor());
+            return resultType;
+        }
+
+        private void convertPrimitive(MethodVisitor mv, Type from, Type to) {
+            int fromSort = normalizeSort(from.getSort());
+            int toSort = normalizeSort(to.getSort());
+            if (fromSort == toSort) return;
+            if (fromSort == Type.INT) mv.visitInsn(toSort == Type.LONG ? I2L : toSort == Type.FLOAT ? I2F : I2D);
+            else if (fromSort == Type.LONG) mv.visitInsn(toSort == Type.INT ? L2I : toSort == Type.FLOAT ? L2F : L2D);
+            else if (fromSort == Type.FLOAT) mv.visitInsn(toSort == Type.INT ? F2I : toSort == Type.LONG ? F2L : F2D);
+            else mv.visitInsn(toSort == Type.INT ? D2I : toSort == Type.LONG ? D2L : D2F);
+        }
+
+        private int normalizeSort(int sort) {
+            return sort == Type.CHAR || sort == Type.SHORT || sort == Type.BYTE || sort == Type.BOOLEAN ? Type.INT : sort;
+        }
     }
 
-    private void primitiveToObject(MethodVisitor mv, Class<?> clazz) {
+    static void primitiveToObject(MethodVisitor mv, Class<?> clazz) {
         if (!clazz.isPrimitive()) return;
         if (clazz == int.class) mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
         else if (clazz == long.class) mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;");
@@ -123,12 +592,25 @@ class InvokerJitter {
 
     private static class InternalClassLoader extends ClassLoader {
 
+        private int definedClasses = 0;
+        private final List<Object> retainedKeys = new ArrayList<Object>();
+
         InternalClassLoader(ClassLoader classLoader) {
             super(classLoader);
         }
 
-        Class<?> defineClass(String name, byte[] b) {
-            return defineClass(name, b, 0, b.length);
+        synchronized void retain(Object key) {
+            retainedKeys.add(key);
+        }
+
+        synchronized boolean isFull() {
+            return definedClasses >= MAX_CLASSES_PER_LOADER;
+        }
+
+        synchronized Class<?> defineGeneratedClass(String classNamePrefix, ClassGenerator generator) {
+            String className = "ch/lambdaj/function/argument/" + classNamePrefix + (++definedClasses);
+            byte[] b = generator.generateBytecode(className);
+            return defineClass(className.replace('/', '.'), b, 0, b.length);
         }
     }
 }
@@ -0,0 +1,147 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the invocation sequences in background on a bounded number of daemon threads. The sequences waiting
+ * to be compiled are kept in a bounded queue from which the most evaluated one is always taken first.
+ * When the queue is full the least evaluated sequence between the queued ones and the submitted one is dropped:
+ * a dropped sequence keeps being evaluated through reflection and is submitted again once it reaches
+ * the jit threshold another time.
+ * The worker threads are started on demand and terminate after being idle for {@link #KEEP_ALIVE_MILLIS}.
+ *
+ * @author Mario Fusco
+ */
+final class JitCompiler {
+
+    static final int DEFAULT_PARALLELISM = Math.min(2, Runtime.getRuntime().availableProcessors());
+    static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    private static final long KEEP_ALIVE_MILLIS = 60000L;
+
+    private final int parallelism;
+    private final int queueCapacity;
+
+    private final List<InvocationSequence> queue = new ArrayList<InvocationSequence>();
+    private int workers = 0;
+    private int idleWorkers = 0;
+    private boolean shutdown = false;
+
+    private long compiled = 0;
+    private long failed = 0;
+    private long dropped = 0;
+    private long totalCompileTime = 0;
+
+    JitCompiler(int parallelism, int queueCapacity) {
+        if (parallelism < 1) throw new IllegalArgumentException("The jit parallelism must be positive: " + parallelism);
+        if (queueCapacity < 1) throw new IllegalArgumentException("The jit queue capacity must be positive: " + queueCapacity);
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Queues the given invocation sequence in order to be compiled
+     * @param sequence The invocation sequence to be compiled
+     * @return True if the sequence has been queued, false if it has been dropped
+     */
+    synchronized boolean submit(InvocationSequence sequence) {
+        if (shutdown) return drop(sequence);
+        if (queue.size() >= queueCapacity) {
+            int coldest = findQueued(false);
+            if (queue.get(coldest).getInvocationCounter() >= sequence.getInvocationCounter()) return drop(sequence);
+            drop(queue.remove(coldest));
+        }
+        queue.add(sequence);
+        if (idleWorkers > 0) notify();
+        else if (workers < parallelism) startWorker();
+        return true;
+    }
+
+    private boolean drop(InvocationSequence sequence) {
+        dropped++;
+        sequence.rearmJitting();
+        return false;
+    }
+
+    private int findQueued(boolean hottest) {
+        int found = 0;
+        for (int i = 1; i < queue.size(); i++) {
+            int counter = queue.get(i).getInvocationCounter();
+            int foundCounter = queue.get(found).getInvocationCounter();
+            if (hottest ? counter > foundCounter : counter < foundCounter) found = i;
+        }
+        return found;
+    }
+
+    private void startWorker() {
+        workers++;
+        Thread worker = new Thread(new Runnable() {
+            public void run() {
+                for (InvocationSequence sequence = take(); sequence != null; sequence = take()) {
+                    compile(sequence);
+                }
+            }
+        }, "lambdaj-jit-compiler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private synchronized InvocationSequence take() {
+        long idleSince = System.currentTimeMillis();
+        while (queue.isEmpty() && !shutdown) {
+            long idleTime = System.currentTimeMillis() - idleSince;
+            if (idleTime >= KEEP_ALIVE_MILLIS) break;
+            idleWorkers++;
+            try {
+                wait(KEEP_ALIVE_MILLIS - idleTime);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                idleWorkers--;
+            }
+        }
+        if (queue.isEmpty() || shutdown) {
+            workers--;
+            return null;
+        }
+        return queue.remove(findQueued(true));
+    }
+
+    private void compile(InvocationSequence sequence) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = sequence.compile();
+        } catch (Throwable t) {
+            success = false;
+        }
+        long compileTime = System.nanoTime() - start;
+        synchronized (this) {
+            if (success) {
+                compiled++;
+                totalCompileTime += compileTime;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads. The sequences still waiting to be compiled are dropped.
+     */
+    synchronized void shutdown() {
+        shutdown = true;
+        for (InvocationSequence sequence : queue) drop(sequence);
+        queue.clear();
+        notifyAll();
+    }
+
+    synchronized JitStatistics getStatistics() {
+        return new JitStatistics(queue.size(), compiled, failed, dropped, compiled == 0 ? 0L : totalCompileTime / compiled);
+    }
+}
@@ -0,0 +1,28 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+/**
+ * Defines when and on which thread the invocations sequence of an argument gets compiled in bytecode
+ * @author Mario Fusco
+ */
+public enum JitMode {
+
+    /**
+     * The argument is compiled by a background thread once it has been evaluated as many times as the jit threshold
+     */
+    ASYNCHRONOUS,
+
+    /**
+     * The argument is compiled on the evaluating thread once it has been evaluated as many times as the jit threshold
+     */
+    SYNCHRONOUS,
+
+    /**
+     * The argument is compiled on the calling thread as soon as its placeholder is converted into the actual argument,
+     * or when it reaches the jit threshold if that happens first
+     */
+    EAGER
+}
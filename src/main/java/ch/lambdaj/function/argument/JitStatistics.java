@@ -0,0 +1,69 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+/**
+ * An immutable snapshot of the activity of the compiler of the arguments
+ *
+ * @author Mario Fusco
+ */
+public final class JitStatistics {
+
+    private final int queued;
+    private final long compiled;
+    private final long failed;
+    private final long dropped;
+    private final long averageCompileTime;
+
+    JitStatistics(int queued, long compiled, long failed, long dropped, long averageCompileTime) {
+        this.queued = queued;
+        this.compiled = compiled;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.averageCompileTime = averageCompileTime;
+    }
+
+    /**
+     * Returns the number of arguments currently waiting to be compiled
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Returns the number of arguments successfully compiled
+     */
+    public long getCompiled() {
+        return compiled;
+    }
+
+    /**
+     * Returns the number of arguments whose compilation failed. They keep being evaluated through reflection
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns how many times an argument has not been queued because the queue was full.
+     * A dropped argument is submitted again when it reaches the jit threshold another time
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the average time, in nanoseconds, spent to compile an argument
+     */
+    public long getAverageCompileTime() {
+        return averageCompileTime;
+    }
+
+    @Override
+    public String toString() {
+        return "JitStatistics[queued=" + queued + ", compiled=" + compiled + ", failed=" + failed
+                + ", dropped=" + dropped + ", averageCompileTime=" + averageCompileTime + "ns]";
+    }
+}
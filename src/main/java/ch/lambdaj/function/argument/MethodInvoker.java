@@ -0,0 +1,22 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+/**
+ * Invokes a given method on the objects passed to it
+ *
+ * @author Mario Fusco
+ */
+public interface MethodInvoker {
+
+    /**
+     * Invokes the method on the given object
+     * @param target The object on which the method has to be invoked
+     * @param args The arguments of the invocation
+     * @return The result of the invocation, boxed if primitive, or null if the method is void
+     * @throws Throwable The exception thrown by the invoked method, not wrapped in an InvocationTargetException
+     */
+    Object invoke(Object target, Object[] args) throws Throwable;
+}
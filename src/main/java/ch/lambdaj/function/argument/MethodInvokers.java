@@ -0,0 +1,140 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Type;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import ch.lambdaj.util.ConcurrentWeakHashMap;
+
+import static net.sf.cglib.asm.Opcodes.*;
+
+/**
+ * Provides the {@link MethodInvoker}s used to invoke a method on many objects. When the jitting is enabled and the method
+ * is accessible, the invoker is a generated class directly calling it, otherwise it invokes the method through reflection.
+ * The invokers are cached by method and weakly referenced by it. A cached reflective invoker is replaced when
+ * the jitting has been enabled after its creation, so the method can be jitted.
+ *
+ * @author Mario Fusco
+ */
+public final class MethodInvokers {
+
+    private MethodInvokers() { }
+
+    private static final ConcurrentWeakHashMap<Method, MethodInvoker> INVOKERS = new ConcurrentWeakHashMap<Method, MethodInvoker>();
+
+    /**
+     * Returns the invoker of the given method
+     * @param method The method to be invoked
+     * @return The invoker of the given method
+     */
+    public static MethodInvoker getInvoker(Method method) {
+        MethodInvoker invoker = INVOKERS.get(method);
+        if (invoker == null || isStale(invoker)) {
+            invoker = createInvoker(method);
+            INVOKERS.put(method, invoker);
+        }
+        return invoker;
+    }
+
+    private static boolean isStale(MethodInvoker invoker) {
+        return invoker instanceof ReflectiveMethodInvoker
+                && ((ReflectiveMethodInvoker)invoker).jittingGeneration != InvocationSequence.getJittingGeneration();
+    }
+
+    private static MethodInvoker createInvoker(Method method) {
+        // the generation is read first: if the jitting gets enabled in the meanwhile the invoker is stale
+        int jittingGeneration = InvocationSequence.getJittingGeneration();
+        if (InvocationSequence.isJittingEnabled() && isJittable(method)) {
+            ClassLoader classLoader = method.getDeclaringClass().getClassLoader();
+            try {
+                return (MethodInvoker)InvokerJitter.defineClass(classLoader != null ? classLoader : MethodInvoker.class.getClassLoader(),
+                        "MethodInvoker_", new MethodInvokerGenerator(method)).newInstance();
+            } catch (Exception e) {
+                // if the compilation fails the method is invoked through reflection
+            } catch (LinkageError e) {
+                // the class loader of the method cannot see lambdaj: the method is invoked through reflection
+            }
+        }
+        method.setAccessible(true);
+        return new ReflectiveMethodInvoker(method, jittingGeneration);
+    }
+
+    private static boolean isJittable(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) return false;
+        if (!InvokerJitter.isAccessible(method.getDeclaringClass()) || !InvokerJitter.isAccessible(method.getReturnType())) return false;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!InvokerJitter.isAccessible(parameterType)) return false;
+        }
+        return true;
+    }
+
+    private static final class ReflectiveMethodInvoker implements MethodInvoker {
+        private final Method method;
+        private final int jittingGeneration;
+
+        private ReflectiveMethodInvoker(Method method, int jittingGeneration) {
+            this.method = method;
+            this.jittingGeneration = jittingGeneration;
+        }
+
+        public Object invoke(Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static final class MethodInvokerGenerator implements ClassGenerator {
+        private final Method method;
+
+        private MethodInvokerGenerator(Method method) {
+            this.method = method;
+        }
+
+        public byte[] generateBytecode(String className) {
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            cw.visit(V1_5, ACC_PUBLIC + ACC_SUPER, className, null, "java/lang/Object", new String[]{"ch/lambdaj/function/argument/MethodInvoker"});
+
+            MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+
+            mv = cw.visitMethod(ACC_PUBLIC, "invoke", "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", null, new String[]{"java/lang/Throwable"});
+            mv.visitCode();
+            Class<?> declaringClass = method.getDeclaringClass();
+            String owner = InvokerJitter.getClassName(declaringClass);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitTypeInsn(CHECKCAST, owner);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                mv.visitVarInsn(ALOAD, 2);
+                mv.visitLdcInsn(i);
+                mv.visitInsn(AALOAD);
+                GeneratedClasses.unbox(mv, parameterTypes[i]);
+            }
+            mv.visitMethodInsn(declaringClass.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL, owner, method.getName(), Type.getMethodDescriptor(method));
+            if (method.getReturnType() == void.class) mv.visitInsn(ACONST_NULL);
+            else InvokerJitter.primitiveToObject(mv, method.getReturnType());
+            mv.visitInsn(ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+
+            cw.visitEnd();
+            return cw.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a class for which the {@link InvokerGenerator} has to generate at build time the invokers of the arguments
+ * defined by the given property paths, e.g. <code>@PrecompiledArguments({"address.city", "age"})</code> on the class
+ * Person for the arguments <code>on(Person.class).getAddress().getCity()</code> and <code>on(Person.class).getAge()</code>.
+ * At runtime these arguments are evaluated by the pregenerated invokers without generating any bytecode.
+ *
+ * @author Mario Fusco
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+public @interface PrecompiledArguments {
+
+    /**
+     * The dot separated paths of the properties, or of the methods without parameters, defining the arguments
+     */
+    String[] value();
+}
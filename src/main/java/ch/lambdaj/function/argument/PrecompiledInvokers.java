@@ -0,0 +1,101 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import ch.lambdaj.util.ConcurrentWeakHashMap;
+
+/**
+ * Finds the invokers generated at build time by the {@link InvokerGenerator}. The invokers available to a class loader
+ * are listed in the {@link #INDEX_RESOURCE} resources it can load, mapping the key of each invocation sequence,
+ * made by the name of its root class followed by the names of the invoked methods, on the name of its invoker class.
+ *
+ * @author Mario Fusco
+ */
+final class PrecompiledInvokers {
+
+    static final String INDEX_RESOURCE = "META-INF/lambdaj/invokers.properties";
+
+    private static final Map<String, String> NO_INVOKERS = Collections.emptyMap();
+
+    private static final ConcurrentWeakHashMap<ClassLoader, Map<String, String>> INDEXES = new ConcurrentWeakHashMap<ClassLoader, Map<String, String>>();
+
+    private PrecompiledInvokers() { }
+
+    /**
+     * Returns the pregenerated invoker for the given invocation sequence
+     * @param invocationSequence The invocation sequence to be evaluated
+     * @return The invoker generated at build time for the given sequence or null if there isn't any
+     */
+    static Invoker getInvoker(InvocationSequence invocationSequence) {
+        ClassLoader classLoader = invocationSequence.getRootInvokedClass().getClassLoader();
+        if (classLoader == null) return null;
+        Map<String, String> index = getIndex(classLoader);
+        if (index.isEmpty()) return null;
+        String key = getKey(invocationSequence);
+        String invokerClassName = key == null ? null : index.get(key);
+        if (invokerClassName == null) return null;
+        try {
+            return InvokerJitter.newInvoker(Class.forName(invokerClassName, true, classLoader), invocationSequence);
+        } catch (Exception e) {
+            // a stale or incompatible invoker is ignored: the sequence will be evaluated as usual
+            return null;
+        }
+    }
+
+    /**
+     * Returns the key of the given invocation sequence or null if it cannot be precompiled
+     * because it invokes a method with parameters
+     */
+    static String getKey(InvocationSequence invocationSequence) {
+        List<Invocation> invocations = new ArrayList<Invocation>();
+        for (Invocation invocation = invocationSequence.lastInvocation; invocation != null; invocation = invocation.previousInvocation) {
+            if (invocation.getInvokedMethod().getParameterTypes().length > 0) return null;
+            invocations.add(invocation);
+        }
+        StringBuilder sb = new StringBuilder(invocationSequence.getRootInvokedClass().getName());
+        for (int i = invocations.size() - 1; i >= 0; i--) { sb.append('.').append(invocations.get(i).getInvokedMethod().getName()); }
+        return sb.toString();
+    }
+
+    private static Map<String, String> getIndex(ClassLoader classLoader) {
+        Map<String, String> index = INDEXES.get(classLoader);
+        if (index == null) {
+            index = loadIndex(classLoader);
+            Map<String, String> loadedIndex = INDEXES.putIfAbsent(classLoader, index);
+            if (loadedIndex != null) index = loadedIndex;
+        }
+        return index;
+    }
+
+    private static Map<String, String> loadIndex(ClassLoader classLoader) {
+        Map<String, String> index = new HashMap<String, String>();
+        try {
+            for (Enumeration<URL> resources = classLoader.getResources(INDEX_RESOURCE); resources.hasMoreElements();) {
+                Properties properties = new Properties();
+                InputStream stream = resources.nextElement().openStream();
+                try {
+                    properties.load(stream);
+                } finally {
+                    stream.close();
+                }
+                for (Map.Entry<Object, Object> entry : properties.entrySet()) index.put((String)entry.getKey(), (String)entry.getValue());
+            }
+        } catch (IOException e) {
+            return NO_INVOKERS;
+        }
+        return index.isEmpty() ? NO_INVOKERS : index;
+    }
+}
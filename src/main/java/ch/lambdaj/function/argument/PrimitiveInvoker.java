@@ -0,0 +1,22 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+/**
+ * An {@link Invoker} that can return a primitive number without boxing it. It is kept apart from {@link Invoker}
+ * in order to not break its existing implementations, so the callers check if an invoker also implements this
+ * interface and otherwise unbox the result of {@link Invoker#invokeOn(Object)}.
+ * It has to be public since it is implemented by the jitted and precompiled invokers that are defined in other class loaders.
+ *
+ * @author Mario Fusco
+ */
+public interface PrimitiveInvoker extends Invoker {
+
+    int invokeOnInt(Object object, int valueIfNull);
+
+    long invokeOnLong(Object object, long valueIfNull);
+
+    double invokeOnDouble(Object object, double valueIfNull);
+}
@@ -0,0 +1,52 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+/**
+ * Records the classes of the objects on which an invocation is performed while it is evaluated through reflection.
+ * When more than {@link #MAX_PROFILED_TYPES} different classes are met the invocation is considered megamorphic
+ * and the profile stops being useful for the compilation of the invocation sequence.
+ * The profile is updated without synchronization: a lost update only leaves a class out of the profile.
+ *
+ * @author Mario Fusco
+ */
+final class ReceiverTypeProfile {
+
+    static final int MAX_PROFILED_TYPES = 4;
+
+    private static final Class<?>[] NO_TYPES = new Class<?>[0];
+
+    private final Class<?>[] types = new Class<?>[MAX_PROFILED_TYPES];
+    private boolean megamorphic;
+
+    void record(Class<?> type) {
+        if (megamorphic) return;
+        for (int i = 0; i < MAX_PROFILED_TYPES; i++) {
+            if (types[i] == type) return;
+            if (types[i] == null) {
+                types[i] = type;
+                return;
+            }
+        }
+        megamorphic = true;
+    }
+
+    boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    /**
+     * Returns the classes recorded by this profile in the order they have been met,
+     * or an empty array if the profiled invocation is megamorphic
+     */
+    Class<?>[] getTypes() {
+        if (megamorphic) return NO_TYPES;
+        int length = 0;
+        while (length < MAX_PROFILED_TYPES && types[length] != null) length++;
+        Class<?>[] result = new Class<?>[length];
+        System.arraycopy(types, 0, result, 0, length);
+        return result;
+    }
+}
@@ -9,6 +9,9 @@ import static ch.lambdaj.util.IntrospectionUtil.*;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.*;
+
+import ch.lambdaj.proxy.*;
 
 /**
  * The abstract class extended by all the lambdaj closures
@@ -31,6 +34,12 @@ abstract class AbstractClosure {
 
     int freeVarsNumber = 0;
 
+    CompiledClosure compiledClosure;
+
+    boolean frozen = false;
+
+    ClosureMemoizer memoizer;
+
     private final List<Object[]> unhandeledInvocations = new ArrayList<Object[]>();
 
     /**
@@ -112,7 +121,106 @@ abstract class AbstractClosure {
 		);
 	}
 
+    /**
+     * Returns true if this closure has been compiled in bytecode
+     * @return True if this closure has been compiled in bytecode, false if it is invoked through reflection
+     */
+    public boolean isCompiled() {
+        return compiledClosure != null;
+    }
+
+    /**
+     * Compiles this closure in a generated class that directly invokes its methods with the variables, curried values
+     * and fixed arguments bound as defined by this closure. The closure keeps being invoked through reflection if
+     * any of the methods it invokes, or of the classes they use, cannot be accessed by a generated class.
+     * The compiled closure is discarded if this closure is redefined.
+     */
+    void compileClosure() {
+        checkNotFrozen();
+        compiledClosure = ClosureCompiler.compile(this);
+    }
+
+    /**
+     * Returns true if this closure is an immutable snapshot created by freezing another closure
+     * @return True if this closure cannot be redefined anymore
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Copies the definition of this closure in the given one and freezes it. The frozen closure can be invoked
+     * concurrently by any number of threads, while any attempt to redefine it throws an UnsupportedOperationException.
+     * Being an immutable object without final fields, it has to be published safely, for example through a final,
+     * volatile or static field, before being shared among threads.
+     * @param frozenClosure The new closure that has to become the frozen copy of this one
+     * @return The frozen closure
+     * @throws IllegalStateException if this closure doesn't invoke any method yet
+     */
+    <T extends AbstractClosure> T freeze(T frozenClosure) throws IllegalStateException {
+        if (invokables.isEmpty()) throw new IllegalStateException("Cannot freeze a closure that doesn't invoke any method");
+        copyDefinition(frozenClosure);
+        frozenClosure.markFrozen();
+        return frozenClosure;
+    }
+
+    /**
+     * Copies the definition of this closure in the given one and makes it cache its results. The copy is frozen if this closure is frozen.
+     * @param memoizedClosure The new closure that has to become the memoizing copy of this one
+     * @param maxEntries The maximum number of results cached by the memoizing closure
+     * @param expireAfter The time after which a cached result expires or 0 if the results never expire
+     * @param timeUnit The unit of the expiration time
+     * @return The memoizing closure
+     * @throws IllegalStateException if this closure doesn't invoke any method yet
+     */
+    <T extends AbstractClosure> T memoize(T memoizedClosure, int maxEntries, long expireAfter, TimeUnit timeUnit) throws IllegalStateException {
+        if (invokables.isEmpty()) throw new IllegalStateException("Cannot memoize a closure that doesn't invoke any method");
+        ClosureMemoizer closureMemoizer = new ClosureMemoizer(maxEntries, timeUnit.toNanos(expireAfter));
+        copyDefinition(memoizedClosure);
+        memoizedClosure.memoizer = closureMemoizer;
+        if (frozen) memoizedClosure.markFrozen();
+        return memoizedClosure;
+    }
+
+    /**
+     * Returns the statistics about the results cached by this closure
+     * @return A snapshot of the activity of the cache of this closure or null if this closure is not memoized
+     */
+    public MemoizationStatistics getMemoizationStatistics() {
+        return memoizer != null ? memoizer.getStatistics() : null;
+    }
+
+    private void copyDefinition(AbstractClosure copy) {
+        copy.closed = closed;
+        copy.invokables = new ArrayList<Invokable>(invokables);
+        copy.argsList = new ArrayList<Object[]>();
+        for (Object[] args : argsList) { copy.argsList.add(args == null ? null : args.clone()); }
+        copy.freeVarsNumber = freeVarsNumber;
+        if (curriedVars != null) copy.curriedVars = curriedVars.clone();
+        if (curriedVarsFlags != null) copy.curriedVarsFlags = curriedVarsFlags.clone();
+        copy.compiledClosure = compiledClosure;
+        copy.memoizer = memoizer;
+    }
+
+    void markFrozen() {
+        invokables = Collections.unmodifiableList(invokables);
+        argsList = Collections.unmodifiableList(argsList);
+        frozen = true;
+    }
+
+    // a redefined closure cannot reuse the results cached with its former definition, that could be shared with its copies
+    private void redefined() {
+        compiledClosure = null;
+        if (memoizer != null) memoizer = memoizer.emptyCopy();
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) throw new UnsupportedOperationException("A frozen closure cannot be redefined");
+    }
+
     void setClosed(Object closed) {
+        checkNotFrozen();
+        redefined();
 		this.closed = closed;
         if (isClosedOnFreeVar()) freeVarsNumber++;
 	}
@@ -127,6 +235,8 @@ abstract class AbstractClosure {
     }
 
     private void bindInvocation(Invokable invokable, Object[] args) {
+        checkNotFrozen();
+        redefined();
 		invokables.add(invokable);
 		if (args != null) for (Object arg : args) { if (getClosureVarType(arg).isClosureVarPlaceholder()) freeVarsNumber++; }
 		argsList.add(args);
@@ -149,6 +259,18 @@ abstract class AbstractClosure {
             unhandeledInvocations.add(vars);
             return null;
         }
+        return memoizer != null ? memoizer.get(this, vars) : closeUncached(vars);
+    }
+
+    /**
+     * Invokes this closure once by applying the given set of variables to it, without looking for its result in the cache of a memoized closure
+     * @param vars The set of variables used to invoke this closure once
+     * @return The result of the closure invocation
+     * @throws WrongClosureInvocationException if the number of the passed variables doesn't correspond to one
+     * with which this closure has been defined
+     */
+    Object closeUncached(Object... vars) throws WrongClosureInvocationException {
+        if (compiledClosure != null) return compiledClosure.invoke(vars);
 
 		List<Object[]> boundParams = bindParams(vars);
 		Object result = isClosedOnFreeVar() ? vars[0] : closed;
@@ -205,6 +327,101 @@ abstract class AbstractClosure {
         return false;
     }
 
+    /**
+     * Invokes this closure once on the given executor by applying the given set of variables to it.
+     * @param executor The executor on which this closure is invoked
+     * @param vars The set of variables used to invoke this closure once
+     * @return The future result of the closure invocation. The failures of the invocation are thrown by its get method
+     */
+    Future<Object> closeOneAsync(Executor executor, final Object... vars) {
+        FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+            public Object call() {
+                return closeOne(vars);
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Invokes this closure in parallel on the given executor once for each passed set of variables.
+     * Each iterable is used as a different set of variables with which this closure is invoked
+     * @param executor The executor on which the invocations of this closure are run
+     * @param maxConcurrency The maximum number of invocations running at the same time or 0 to submit them all at once
+     * @param vars The variables used to invoke this closure once for each set of variables
+     * @return A list of Object containing the results of each closure invocation in the order of the sets of variables
+     * @throws ParallelInvocationException if some invocations fail, reporting the failures of all of them
+     */
+    List<?> closeAllParallel(Executor executor, int maxConcurrency, Iterable<?>... vars) throws ParallelInvocationException {
+        if (maxConcurrency < 0) throw new IllegalArgumentException("The maximum concurrency cannot be negative: " + maxConcurrency);
+        if (invokables.isEmpty()) return closeAll(vars);
+
+        List<Object[]> varSets = new ArrayList<Object[]>();
+		int length = vars.length;
+		Iterator<?>[] iterators = new Iterator<?>[length];
+		for (int i = 0; i < length; i++) { iterators[i] = vars[i].iterator(); }
+		while (true) {
+			Object[] varSet = new Object[length];
+            if (buildParams(length, iterators, varSet)) break;
+			varSets.add(varSet);
+		}
+
+        Object[] results = new Object[varSets.size()];
+        Throwable[] failures = new Throwable[varSets.size()];
+        CountDownLatch latch = new CountDownLatch(varSets.size());
+        Semaphore permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+        try {
+            for (int i = 0; i < varSets.size(); i++) {
+                if (permits != null) permits.acquire();
+                try {
+                    executor.execute(new ParallelInvocation(i, varSets.get(i), results, failures, latch, permits));
+                } catch (RuntimeException e) {
+                    if (permits != null) permits.release();
+                    throw e;
+                }
+            }
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the parallel invocations of the closure", e);
+        }
+
+        List<Throwable> allFailures = new ArrayList<Throwable>();
+        for (Throwable failure : failures) { if (failure != null) allFailures.add(failure); }
+        if (!allFailures.isEmpty()) throw new ParallelInvocationException("closure", allFailures);
+        return Arrays.asList(results);
+    }
+
+    // the results and the failures are published to the invoking thread through the latch
+    private final class ParallelInvocation implements Runnable {
+        private final int index;
+        private final Object[] vars;
+        private final Object[] results;
+        private final Throwable[] failures;
+        private final CountDownLatch latch;
+        private final Semaphore permits;
+
+        ParallelInvocation(int index, Object[] vars, Object[] results, Throwable[] failures, CountDownLatch latch, Semaphore permits) {
+            this.index = index;
+            this.vars = vars;
+            this.results = results;
+            this.failures = failures;
+            this.latch = latch;
+            this.permits = permits;
+        }
+
+        public void run() {
+            try {
+                results[index] = closeOne(vars);
+            } catch (Throwable t) {
+                failures[index] = t;
+            } finally {
+                if (permits != null) permits.release();
+                latch.countDown();
+            }
+        }
+    }
+
     private List<Object[]> bindParams(Object... vars) throws WrongClosureInvocationException {
         if (checkParams(vars)) return null;
 		int varCounter = isClosedOnFreeVar() ? 1 : 0;
@@ -263,13 +480,16 @@ abstract class AbstractClosure {
      * @param curriedClosure The closure resulting from this curry operation
      * @param curried The value to which the free variable should be curry
      * @param position The 1-based position of the variable to which apply the curry operation
-     * @return A Closure having a free variable less than this one since one of them has been fixed to the given value
+     * @return A Closure having a free variable less than this one since one of them has been fixed to the given value.
+     *         The curried closure of a frozen closure is frozen as well
      * @throws IllegalArgumentException if this closure doesn't have a free variable in the specified position
      */
 	<T extends AbstractClosure> T curry(T curriedClosure, Object curried, int position) throws IllegalArgumentException {
         cloneClosureForCurry(curriedClosure);
 
 		curriedClosure.curryParam(curried, position);
+        if (compiledClosure != null) curriedClosure.compileClosure();
+        curriedClosure.frozen = frozen;
 		return curriedClosure;
 	}
 
@@ -290,6 +510,7 @@ abstract class AbstractClosure {
     }
 
     void curryParam(Object curried, int position) throws IllegalArgumentException {
+        redefined();
         if (checkCurriedOnClosed(curried, position)) return;
 
         if (curriedVars == null) {
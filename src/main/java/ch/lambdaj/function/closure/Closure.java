@@ -5,6 +5,7 @@
 package ch.lambdaj.function.closure;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A generic (not strongly typed) lambdaj closure
@@ -57,6 +58,51 @@ public class Closure extends AbstractClosure {
 		return curry(new Closure(), curry, position);
 	}
 
+    /**
+     * Invokes this closure once on the given executor by applying the given set of variables to it.
+     * @param executor The executor on which this closure is invoked
+     * @param vars The set of variables used to invoke this closure once
+     * @return The future result of the closure invocation. The failures of the invocation are thrown by its get method
+     */
+	public Future<Object> applyAsync(Executor executor, Object... vars) {
+		return closeOneAsync(executor, vars);
+	}
+
+    /**
+     * Invokes this closure in parallel on the given executor once for each passed set of variables.
+     * It is then assumed that the closure doesn't change any state shared with the other invocations
+     * or that it does it in a thread safe way.
+     * @param executor The executor on which the invocations of this closure are run
+     * @param maxConcurrency The maximum number of invocations running at the same time or 0 to submit them all at once
+     * @param vars The variables used to invoke this closure once for each set of variables
+     * @return A list of Object containing the results of each closure invocation in the order of the variables
+     * @throws ch.lambdaj.proxy.ParallelInvocationException if some invocations fail, reporting the failures of all of them
+     */
+	public List<?> eachParallel(Executor executor, int maxConcurrency, Iterable<?>... vars) {
+		return closeAllParallel(executor, maxConcurrency, vars);
+	}
+
+    /**
+     * Compiles this closure in bytecode, so each following invocation directly calls the methods of this closure
+     * without allocating any array to bind its variables. The closure keeps being invoked through reflection
+     * if any of the methods it invokes is not accessible.
+     * @return The closure itself
+     */
+    public Closure compile() {
+        compileClosure();
+        return this;
+    }
+
+    /**
+     * Creates an immutable snapshot of this closure that can be safely invoked by many threads at the same time.
+     * The returned closure cannot be redefined and currying it returns other frozen closures.
+     * @return A frozen copy of this closure or the closure itself if it is already frozen
+     * @throws IllegalStateException if this closure doesn't invoke any method yet
+     */
+    public Closure freeze() throws IllegalStateException {
+        return isFrozen() ? this : freeze(new Closure());
+    }
+
     /**
      * Defines the method invoked by this closure.
      * @param closedObject The object on which the closure has to be invoked. It can be a fixed object or a Class.
@@ -4,6 +4,8 @@
 
 package ch.lambdaj.function.closure;
 
+import java.util.concurrent.*;
+
 /**
  * A closure with no free variables
  * @author Mario Fusco
@@ -15,9 +17,39 @@ public class Closure0 extends AbstractClosure {
      * @return The result of the closure invocation
      */
 	public Object apply() {
-		return closeOne();
+		return compiledClosure != null && memoizer == null ? compiledClosure.invoke() : closeOne();
 	}
 
+    /**
+     * Invokes this closure once on the given executor.
+     * @param executor The executor on which this closure is invoked
+     * @return The future result of the closure invocation. The failures of the invocation are thrown by its get method
+     */
+	public Future<Object> applyAsync(Executor executor) {
+		return closeOneAsync(executor);
+	}
+
+    /**
+     * Compiles this closure in bytecode, so each following invocation directly calls the methods of this closure
+     * without allocating any array to bind its variables. The closure keeps being invoked through reflection
+     * if any of the methods it invokes is not accessible.
+     * @return The closure itself
+     */
+    public Closure0 compile() {
+        compileClosure();
+        return this;
+    }
+
+    /**
+     * Creates an immutable snapshot of this closure that can be safely invoked by many threads at the same time.
+     * The returned closure cannot be redefined and currying it returns other frozen closures.
+     * @return A frozen copy of this closure or the closure itself if it is already frozen
+     * @throws IllegalStateException if this closure doesn't invoke any method yet
+     */
+    public Closure0 freeze() throws IllegalStateException {
+        return isFrozen() ? this : freeze(new Closure0());
+    }
+
     /**
      * Defines the method invoked by this closure.
      * @param closedObject The object on which the closure has to be invoked. It can be a fixed object or a Class.
@@ -5,6 +5,7 @@
 package ch.lambdaj.function.closure;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A closure with two free variables
@@ -19,7 +20,7 @@ public class Closure2<A, B> extends AbstractClosure {
       * @return The result of the closure invocation
       */
 	public Object apply(A var1, B var2) {
-		return closeOne(var1, var2);
+		return compiledClosure != null && memoizer == null ? compiledClosure.invoke(var1, var2) : closeOne(var1, var2);
 	}
 	
     /**
@@ -50,6 +51,80 @@ public class Closure2<A, B> extends AbstractClosure {
 		return curry(new Closure1<A>(), curry, 2);
 	}
 
+    /**
+     * Invokes this closure once on the given executor by applying the given pair of variables to it.
+     * @param executor The executor on which this closure is invoked
+     * @param var1 The first variable used to invoke this closure
+     * @param var2 The second variable used to invoke this closure
+     * @return The future result of the closure invocation. The failures of the invocation are thrown by its get method
+     */
+	public Future<Object> applyAsync(Executor executor, A var1, B var2) {
+		return closeOneAsync(executor, var1, var2);
+	}
+
+    /**
+     * Invokes this closure in parallel on the given executor once for each passed pair of variables.
+     * It is then assumed that the closure doesn't change any state shared with the other invocations
+     * or that it does it in a thread safe way.
+     * @param executor The executor on which the invocations of this closure are run
+     * @param maxConcurrency The maximum number of invocations running at the same time or 0 to submit them all at once
+     * @param vars1 The first set of variables used to invoke this closure once for each variable
+     * @param vars2 The second set of variables used to invoke this closure once for each variable
+     * @return A list of Object containing the results of each closure invocation in the order of the variables
+     * @throws ch.lambdaj.proxy.ParallelInvocationException if some invocations fail, reporting the failures of all of them
+     */
+	public List<?> eachParallel(Executor executor, int maxConcurrency, Iterable<? extends A> vars1, Iterable<? extends B> vars2) {
+		return closeAllParallel(executor, maxConcurrency, vars1, vars2);
+	}
+
+    /**
+     * Creates a copy of this closure that caches its results, keyed by the variables with which it is invoked, so
+     * a following invocation with equal variables returns the cached result without invoking the closure again.
+     * When the cache is full the least recently used results are evicted.
+     * @param maxEntries The maximum number of results cached by the returned closure
+     * @return A memoizing copy of this closure
+     * @throws IllegalStateException if this closure doesn't invoke any method yet
+     */
+    public Closure2<A, B> memoize(int maxEntries) throws IllegalStateException {
+        return memoize(maxEntries, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a copy of this closure that caches its results, keyed by the variables with which it is invoked, so
+     * a following invocation with equal variables returns the cached result without invoking the closure again.
+     * When the cache is full the least recently used results are evicted.
+     * The statistics about the cached results are returned by {@link AbstractClosure#getMemoizationStatistics()}.
+     * @param maxEntries The maximum number of results cached by the returned closure
+     * @param expireAfter The time after which a cached result expires or 0 if the results never expire
+     * @param timeUnit The unit of the expiration time
+     * @return A memoizing copy of this closure
+     * @throws IllegalStateException if this closure doesn't invoke any method yet
+     */
+    public Closure2<A, B> memoize(int maxEntries, long expireAfter, TimeUnit timeUnit) throws IllegalStateException {
+        return memoize(new Closure2<A, B>(), maxEntries, expireAfter, timeUnit);
+    }
+
+    /**
+     * Compiles this closure in bytecode, so each following invocation directly calls the methods of this closure
+     * without allocating any array to bind its variables. The closure keeps being invoked through reflection
+     * if any of the methods it invokes is not accessible.
+     * @return The closure itself
+     */
+    public Closure2<A, B> compile() {
+        compileClosure();
+        return this;
+    }
+
+    /**
+     * Creates an immutable snapshot of this closure that can be safely invoked by many threads at the same time.
+     * The returned closure cannot be redefined and currying it returns other frozen closures.
+     * @return A frozen copy of this closure or the closure itself if it is already frozen
+     * @throws IllegalStateException if this closure doesn't invoke any method yet
+     */
+    public Closure2<A, B> freeze() throws IllegalStateException {
+        return isFrozen() ? this : freeze(new Closure2<A, B>());
+    }
+
     /**
      * Defines the method invoked by this closure.
      * @param closedObject The object on which the closure has to be invoked. It can be a fixed object or a Class.
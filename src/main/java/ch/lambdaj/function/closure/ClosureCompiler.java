@@ -0,0 +1,319 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.closure;
+
+import static ch.lambdaj.function.closure.ClosuresFactory.*;
+import static net.sf.cglib.asm.Opcodes.*;
+
+import ch.lambdaj.function.argument.Argument;
+import ch.lambdaj.function.argument.ClassGenerator;
+import ch.lambdaj.function.argument.GeneratedClasses;
+import net.sf.cglib.asm.ClassWriter;
+import net.sf.cglib.asm.Label;
+import net.sf.cglib.asm.MethodVisitor;
+import net.sf.cglib.asm.Type;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Compiles a closure in a subclass of {@link CompiledClosure}. The binding plan of the closure, i.e. which free variable,
+ * curried value or fixed argument is passed to each parameter of each invoked method, is computed once here and
+ * then hardcoded in the generated bytecode.
+ * @author Mario Fusco
+ */
+class ClosureCompiler implements ClassGenerator {
+
+    private static final String COMPILED_CLOSURE_CLASS_NAME = "ch/lambdaj/function/closure/CompiledClosure";
+    private static final String CONSTRUCTOR_DESCRIPTOR = "(Ljava/lang/Object;[Ljava/lang/Object;[Lch/lambdaj/function/argument/Argument;ILjava/lang/String;)V";
+    private static final String ARGUMENT_CLASS_NAME = "ch/lambdaj/function/argument/Argument";
+
+    private static final int MAX_TYPED_VARS = 4;
+
+    private final Member[] members;
+    private final BoundArg[][] boundArgs;
+    private final boolean closedOnFreeVar;
+    private final int freeVarsNumber;
+
+    private final List<Object> fixedArgs = new ArrayList<Object>();
+    private final Argument<?>[] varArguments;
+
+    private ClosureCompiler(AbstractClosure closure, Member[] members) {
+        this.members = members;
+        closedOnFreeVar = closure.closed instanceof Class<?>;
+        freeVarsNumber = closure.freeVarsNumber;
+        varArguments = new Argument<?>[freeVarsNumber];
+        boundArgs = bindArgs(closure);
+    }
+
+    /**
+     * Compiles the given closure
+     * @param closure The closure to be compiled
+     * @return The compiled closure or null if the closure invokes a method or uses a class that cannot be accessed from a generated class
+     */
+    static CompiledClosure compile(AbstractClosure closure) {
+        Member[] members = getMembers(closure);
+        if (members == null) return null;
+        ClassLoader classLoader = getClassLoader(closure, members);
+        if (classLoader == null) return null;
+
+        ClosureCompiler compiler = new ClosureCompiler(closure, members);
+        try {
+            Class<?> compiledClass = GeneratedClasses.define(classLoader, "CompiledClosure_", compiler);
+            return (CompiledClosure)compiledClass.getConstructor(Object.class, Object[].class, Argument[].class, int.class, String.class)
+                    .newInstance(closure.closed, compiler.fixedArgs.toArray(), compiler.varArguments, compiler.freeVarsNumber, compiler.getDescription());
+        } catch (Exception e) {
+            // if the compilation fails the closure keeps being invoked through reflection
+        } catch (LinkageError e) {
+            // the class loader of the invoked classes cannot see lambdaj: the closure keeps being invoked through reflection
+        }
+        return null;
+    }
+
+    private static Member[] getMembers(AbstractClosure closure) {
+        if (closure.invokables.isEmpty()) return null;
+        Member[] members = new Member[closure.invokables.size()];
+        for (int i = 0; i < members.length; i++) {
+            Invokable invokable = closure.invokables.get(i);
+            if (invokable instanceof InvokableMethod) members[i] = ((InvokableMethod)invokable).getMethod();
+            else if (invokable instanceof InvokableConstructor) members[i] = ((InvokableConstructor)invokable).getConstructor();
+            else return null;
+            Object[] args = closure.argsList.get(i);
+            if ((args == null ? 0 : args.length) != getParameterTypes(members[i]).length) return null;
+            if (!isCompilable(members[i]) || (i > 0 && !isStatic(members[i]) && !isReference(getReturnType(members[i-1])))) return null;
+        }
+        return members;
+    }
+
+    private static boolean isCompilable(Member member) {
+        Class<?> declaringClass = member.getDeclaringClass();
+        if (!Modifier.isPublic(member.getModifiers()) || !GeneratedClasses.isAccessible(declaringClass)) return false;
+        if (member instanceof Constructor<?> && Modifier.isAbstract(declaringClass.getModifiers())) return false;
+        if (!GeneratedClasses.isAccessible(getReturnType(member))) return false;
+        for (Class<?> parameterType : getParameterTypes(member)) {
+            if (!GeneratedClasses.isAccessible(parameterType)) return false;
+        }
+        return true;
+    }
+
+    private static ClassLoader getClassLoader(AbstractClosure closure, Member[] members) {
+        ClassLoader classLoader = null;
+        for (Member member : members) {
+            classLoader = member.getDeclaringClass().getClassLoader();
+            if (classLoader != null) break;
+        }
+        if (classLoader == null) classLoader = CompiledClosure.class.getClassLoader();
+        for (Member member : members) {
+            if (!GeneratedClasses.isVisible(member.getDeclaringClass(), classLoader) || !GeneratedClasses.isVisible(getReturnType(member), classLoader))
+                return null;
+            for (Class<?> parameterType : getParameterTypes(member)) {
+                if (!GeneratedClasses.isVisible(parameterType, classLoader)) return null;
+            }
+        }
+        return classLoader;
+    }
+
+    private BoundArg[][] bindArgs(AbstractClosure closure) {
+        BoundArg[][] bound = new BoundArg[members.length][];
+        int varCounter = closedOnFreeVar ? 1 : 0;
+        int curriedParamCounter = 0;
+        for (int i = 0; i < members.length; i++) {
+            Object[] args = closure.argsList.get(i);
+            bound[i] = new BoundArg[args == null ? 0 : args.length];
+            for (int j = 0; j < bound[i].length; j++) {
+                ClosureVarType varType = getClosureVarType(args[j]);
+                if (varType == ClosureVarType.FIXED) {
+                    bound[i][j] = bindFixed(args[j]);
+                    continue;
+                }
+                if (closure.curriedVars != null && closure.curriedVarsFlags[curriedParamCounter]) {
+                    bound[i][j] = bindFixed(closure.curriedVars[curriedParamCounter]);
+                } else {
+                    if (varType == ClosureVarType.VAR) varArguments[varCounter] = getClosureVarArgument(args[j]);
+                    bound[i][j] = new BoundArg(varType, varCounter++);
+                }
+                curriedParamCounter++;
+            }
+        }
+        return bound;
+    }
+
+    private BoundArg bindFixed(Object value) {
+        fixedArgs.add(value);
+        return new BoundArg(ClosureVarType.FIXED, fixedArgs.size() - 1);
+    }
+
+    private String getDescription() {
+        StringBuilder sb = new StringBuilder();
+        for (Member member : members) {
+            if (sb.length() > 0) sb.append(" -> ");
+            sb.append(member);
+        }
+        return sb.toString();
+    }
+
+    public byte[] generateBytecode(String className) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_5, ACC_PUBLIC + ACC_SUPER, className, null, COMPILED_CLOSURE_CLASS_NAME, null);
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitVarInsn(ILOAD, 4);
+        mv.visitVarInsn(ALOAD, 5);
+        mv.visitMethodInsn(INVOKESPECIAL, COMPILED_CLOSURE_CLASS_NAME, "<init>", CONSTRUCTOR_DESCRIPTOR);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        jitClosure(cw.visitMethod(ACC_PROTECTED, "invokeOnVars", "([Ljava/lang/Object;)Ljava/lang/Object;", null, null), true);
+        if (freeVarsNumber <= MAX_TYPED_VARS) {
+            StringBuilder descriptor = new StringBuilder("(");
+            for (int i = 0; i < freeVarsNumber; i++) { descriptor.append("Ljava/lang/Object;"); }
+            jitClosure(cw.visitMethod(ACC_PUBLIC, "invoke", descriptor.append(")Ljava/lang/Object;").toString(), null, null), false);
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private void jitClosure(MethodVisitor mv, boolean varsInArray) {
+        mv.visitCode();
+        if (closedOnFreeVar) {
+            mv.visitVarInsn(ALOAD, 0);
+            jitLoadVar(mv, 0, varsInArray);
+            mv.visitMethodInsn(INVOKEVIRTUAL, COMPILED_CLOSURE_CLASS_NAME, "checkClosedType", "(Ljava/lang/Object;)V");
+        }
+
+        Label tryStart = new Label();
+        Label tryEnd = new Label();
+        Label failureHandler = new Label();
+        mv.visitTryCatchBlock(tryStart, tryEnd, failureHandler, "java/lang/Throwable");
+        mv.visitLabel(tryStart);
+
+        Class<?> resultType = null;
+        for (int i = 0; i < members.length; i++) {
+            jitInvocation(mv, i, resultType, varsInArray);
+            resultType = getReturnType(members[i]);
+        }
+        if (resultType == void.class) mv.visitInsn(ACONST_NULL);
+        else GeneratedClasses.box(mv, resultType);
+        mv.visitLabel(tryEnd);
+        mv.visitInsn(ARETURN);
+
+        // the failures are wrapped in a WrongClosureInvocationException as the reflective invocation does
+        mv.visitLabel(failureHandler);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitInsn(SWAP);
+        mv.visitMethodInsn(INVOKEVIRTUAL, COMPILED_CLOSURE_CLASS_NAME, "invocationFailed", "(Ljava/lang/Throwable;)Lch/lambdaj/function/closure/WrongClosureInvocationException;");
+        mv.visitInsn(ATHROW);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generates the invocation of the i-th member of the closure. The result of the former invocation, if any, is on the
+     * top of the stack and is used as receiver of this invocation or discarded if the invoked member is static.
+     */
+    private void jitInvocation(MethodVisitor mv, int i, Class<?> previousResultType, boolean varsInArray) {
+        Member member = members[i];
+        String owner = GeneratedClasses.getInternalName(member.getDeclaringClass());
+        if (isStatic(member)) {
+            if (previousResultType != null) jitPop(mv, previousResultType);
+        } else if (previousResultType == null) {
+            if (closedOnFreeVar) jitLoadVar(mv, 0, varsInArray);
+            else {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitFieldInsn(GETFIELD, COMPILED_CLOSURE_CLASS_NAME, "closed", "Ljava/lang/Object;");
+            }
+            mv.visitTypeInsn(CHECKCAST, owner);
+        } else if (!member.getDeclaringClass().isAssignableFrom(previousResultType)) {
+            mv.visitTypeInsn(CHECKCAST, owner);
+        }
+
+        if (member instanceof Constructor<?>) {
+            mv.visitTypeInsn(NEW, owner);
+            mv.visitInsn(DUP);
+            jitArgs(mv, i, varsInArray);
+            mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>", Type.getConstructorDescriptor((Constructor<?>)member));
+        } else {
+            Method method = (Method)member;
+            jitArgs(mv, i, varsInArray);
+            int opcode = Modifier.isStatic(method.getModifiers()) ? INVOKESTATIC : method.getDeclaringClass().isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL;
+            mv.visitMethodInsn(opcode, owner, method.getName(), Type.getMethodDescriptor(method));
+        }
+    }
+
+    private void jitArgs(MethodVisitor mv, int i, boolean varsInArray) {
+        Class<?>[] parameterTypes = getParameterTypes(members[i]);
+        for (int j = 0; j < parameterTypes.length; j++) {
+            BoundArg boundArg = boundArgs[i][j];
+            switch (boundArg.type) {
+                case FIXED:
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitFieldInsn(GETFIELD, COMPILED_CLOSURE_CLASS_NAME, "fixedArgs", "[Ljava/lang/Object;");
+                    mv.visitLdcInsn(boundArg.index);
+                    mv.visitInsn(AALOAD);
+                    break;
+                case VAR:
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitFieldInsn(GETFIELD, COMPILED_CLOSURE_CLASS_NAME, "varArguments", "[L" + ARGUMENT_CLASS_NAME + ";");
+                    mv.visitLdcInsn(boundArg.index);
+                    mv.visitInsn(AALOAD);
+                    jitLoadVar(mv, boundArg.index, varsInArray);
+                    mv.visitMethodInsn(INVOKEVIRTUAL, ARGUMENT_CLASS_NAME, "evaluate", "(Ljava/lang/Object;)Ljava/lang/Object;");
+                    break;
+                case FINAL_VAR:
+                    jitLoadVar(mv, boundArg.index, varsInArray);
+                    break;
+            }
+            GeneratedClasses.unbox(mv, parameterTypes[j]);
+        }
+    }
+
+    private void jitLoadVar(MethodVisitor mv, int index, boolean varsInArray) {
+        if (varsInArray) {
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitLdcInsn(index);
+            mv.visitInsn(AALOAD);
+        } else {
+            mv.visitVarInsn(ALOAD, 1 + index);
+        }
+    }
+
+    private void jitPop(MethodVisitor mv, Class<?> type) {
+        if (type == void.class) return;
+        mv.visitInsn(type == long.class || type == double.class ? POP2 : POP);
+    }
+
+    private static boolean isStatic(Member member) {
+        return member instanceof Constructor<?> || Modifier.isStatic(member.getModifiers());
+    }
+
+    private static boolean isReference(Class<?> type) {
+        return !type.isPrimitive();
+    }
+
+    private static Class<?> getReturnType(Member member) {
+        return member instanceof Method ? ((Method)member).getReturnType() : member.getDeclaringClass();
+    }
+
+    private static Class<?>[] getParameterTypes(Member member) {
+        return member instanceof Method ? ((Method)member).getParameterTypes() : ((Constructor<?>)member).getParameterTypes();
+    }
+
+    private static final class BoundArg {
+        private final ClosureVarType type;
+        private final int index;
+
+        private BoundArg(ClosureVarType type, int index) {
+            this.type = type;
+            this.index = index;
+        }
+    }
+}
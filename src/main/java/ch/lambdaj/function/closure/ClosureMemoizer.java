@@ -0,0 +1,153 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.closure;
+
+import java.util.*;
+
+/**
+ * A bounded cache of the results of a closure, keyed by the variables with which it has been invoked.
+ * A large cache is split in segments, each one guarded by its own lock and evicting its least recently used result
+ * when full, so concurrent invocations with different variables rarely contend for the same lock. Since each segment
+ * holds at least {@link #MIN_SEGMENT_CAPACITY} results, a small cache is made of a single segment and then it is
+ * exactly bounded by the least recently used policy.
+ * The closure is invoked without holding any lock, so concurrent misses on the same variables can invoke it more than once.
+ * @author Mario Fusco
+ */
+class ClosureMemoizer {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final int maxEntries;
+    private final Segment[] segments;
+    private final long expireAfterNanos;
+
+    /**
+     * Creates a cache of results
+     * @param maxEntries The maximum number of results kept in the cache
+     * @param expireAfterNanos The nanoseconds after which a cached result expires or 0 if the results never expire
+     */
+    ClosureMemoizer(int maxEntries, long expireAfterNanos) {
+        if (maxEntries < 1) throw new IllegalArgumentException("The maximum number of memoized results must be positive: " + maxEntries);
+        if (expireAfterNanos < 0) throw new IllegalArgumentException("The expiration time cannot be negative: " + expireAfterNanos);
+        this.maxEntries = maxEntries;
+        this.expireAfterNanos = expireAfterNanos;
+        segments = new Segment[Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_CAPACITY))];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(maxEntries / segments.length + (i < maxEntries % segments.length ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the cached result of the invocation of the given closure with the given variables,
+     * invoking it and caching its result if it is not cached yet or expired
+     */
+    Object get(AbstractClosure closure, Object[] vars) {
+        Key key = new Key(vars);
+        Segment segment = segments[(key.hash & 0x7fffffff) % segments.length];
+        long now = expireAfterNanos > 0 ? System.nanoTime() : 0L;
+        synchronized (segment) {
+            CachedResult cached = segment.get(key);
+            if (cached != null) {
+                if (expireAfterNanos == 0 || now - cached.expiresAt < 0) {
+                    segment.hits++;
+                    return cached.result;
+                }
+                segment.remove(key);
+                segment.expirations++;
+            }
+            segment.misses++;
+        }
+        Object result = closure.closeUncached(vars);
+        synchronized (segment) {
+            // the key is copied since the invoker could reuse the array of variables
+            segment.put(key.copy(), new CachedResult(result, expireAfterNanos > 0 ? System.nanoTime() + expireAfterNanos : 0L));
+        }
+        return result;
+    }
+
+    /**
+     * Creates an empty cache with the same size and expiration time of this one
+     */
+    ClosureMemoizer emptyCopy() {
+        return new ClosureMemoizer(maxEntries, expireAfterNanos);
+    }
+
+    /**
+     * Returns a snapshot of the activity of this cache
+     */
+    MemoizationStatistics getStatistics() {
+        int size = 0;
+        long hits = 0, misses = 0, evictions = 0, expirations = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.evictions;
+                expirations += segment.expirations;
+            }
+        }
+        return new MemoizationStatistics(size, hits, misses, evictions, expirations);
+    }
+
+    // the counters are only accessed while holding the lock on the segment
+    private static final class Segment extends LinkedHashMap<Key, CachedResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+        private long hits, misses, evictions, expirations;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+            if (size() <= maxEntries) return false;
+            evictions++;
+            return true;
+        }
+    }
+
+    private static final class Key {
+        private final Object[] vars;
+        private final int hash;
+
+        Key(Object[] vars) {
+            this(vars, Arrays.hashCode(vars));
+        }
+
+        private Key(Object[] vars, int hash) {
+            this.vars = vars;
+            this.hash = hash;
+        }
+
+        Key copy() {
+            return vars == null ? this : new Key(vars.clone(), hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && hash == ((Key)obj).hash && Arrays.equals(vars, ((Key)obj).vars);
+        }
+    }
+
+    private static final class CachedResult {
+        private final Object result;
+        private final long expiresAt;
+
+        CachedResult(Object result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
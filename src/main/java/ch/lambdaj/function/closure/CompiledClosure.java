@@ -0,0 +1,132 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.closure;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * The superclass of the classes generated when a closure is compiled. A generated class invokes the whole chain of
+ * methods of the closure with direct calls, reading the fixed and curried arguments from a precomputed array, so
+ * applying it doesn't allocate anything beyond the work done by the invoked methods.
+ * It is public only because the generated classes are defined in a different class loader.
+ * @author Mario Fusco
+ */
+public abstract class CompiledClosure {
+
+    /**
+     * The object on which the closure is invoked or, if the closure is closed on a free variable, its Class
+     */
+    protected final Object closed;
+
+    /**
+     * The fixed and curried arguments of the invocations of the closure
+     */
+    protected final Object[] fixedArgs;
+
+    /**
+     * The arguments evaluated on the free variables, indexed by the position of the variable they are evaluated on
+     */
+    protected final Argument<?>[] varArguments;
+
+    private final int freeVarsNumber;
+    private final String description;
+
+    protected CompiledClosure(Object closed, Object[] fixedArgs, Argument<?>[] varArguments, int freeVarsNumber, String description) {
+        this.closed = closed;
+        this.fixedArgs = fixedArgs;
+        this.varArguments = varArguments;
+        this.freeVarsNumber = freeVarsNumber;
+        this.description = description;
+    }
+
+    /**
+     * Invokes the compiled closure once by applying the given set of variables to it.
+     * @param vars The set of variables used to invoke the closure once
+     * @return The result of the closure invocation
+     * @throws WrongClosureInvocationException if the number of the passed variables doesn't correspond to the expected one
+     */
+    public final Object invoke(Object[] vars) throws WrongClosureInvocationException {
+        int varsNumber = vars == null ? 0 : vars.length;
+        if (varsNumber != freeVarsNumber) throw wrongVarsNumber(varsNumber);
+        return invokeOnVars(vars);
+    }
+
+    /**
+     * Invokes the compiled closure once by applying the variables in the given array to it
+     * @param vars The set of variables used to invoke the closure, having the expected length
+     * @return The result of the closure invocation
+     */
+    protected abstract Object invokeOnVars(Object[] vars);
+
+    /**
+     * Invokes the compiled closure without any variable
+     * @return The result of the closure invocation
+     */
+    public Object invoke() {
+        throw wrongVarsNumber(0);
+    }
+
+    /**
+     * Invokes the compiled closure with a single variable
+     * @param var1 The variable used to invoke the closure
+     * @return The result of the closure invocation
+     */
+    public Object invoke(Object var1) {
+        throw wrongVarsNumber(1);
+    }
+
+    /**
+     * Invokes the compiled closure with two variables
+     * @param var1 The first variable used to invoke the closure
+     * @param var2 The second variable used to invoke the closure
+     * @return The result of the closure invocation
+     */
+    public Object invoke(Object var1, Object var2) {
+        throw wrongVarsNumber(2);
+    }
+
+    /**
+     * Invokes the compiled closure with three variables
+     * @param var1 The first variable used to invoke the closure
+     * @param var2 The second variable used to invoke the closure
+     * @param var3 The third variable used to invoke the closure
+     * @return The result of the closure invocation
+     */
+    public Object invoke(Object var1, Object var2, Object var3) {
+        throw wrongVarsNumber(3);
+    }
+
+    /**
+     * Invokes the compiled closure with four variables
+     * @param var1 The first variable used to invoke the closure
+     * @param var2 The second variable used to invoke the closure
+     * @param var3 The third variable used to invoke the closure
+     * @param var4 The fourth variable used to invoke the closure
+     * @return The result of the closure invocation
+     */
+    public Object invoke(Object var1, Object var2, Object var3, Object var4) {
+        throw wrongVarsNumber(4);
+    }
+
+    protected final void checkClosedType(Object toBeClosed) {
+        if (!((Class<?>)closed).isInstance(toBeClosed))
+            throw new WrongClosureInvocationException("The first var must be of class " + closed);
+    }
+
+    protected final WrongClosureInvocationException invocationFailed(Throwable t) {
+        return new WrongClosureInvocationException("Error invoking " + description, t);
+    }
+
+    private WrongClosureInvocationException wrongVarsNumber(int varsNumber) {
+        return new WrongClosureInvocationException(varsNumber == 0 ?
+                "Closure invoked without vars instead of the expected " + freeVarsNumber :
+                "Closure invoked with " + varsNumber + " vars instead of the expected " + freeVarsNumber);
+    }
+
+    @Override
+    public String toString() {
+        return "compiled closure on " + description;
+    }
+}
@@ -39,4 +39,8 @@ class InvokableConstructor implements Invokable {
     public boolean isStatic() {
         return true;
     }
+
+    Constructor<?> getConstructor() {
+        return constructor;
+    }
 }
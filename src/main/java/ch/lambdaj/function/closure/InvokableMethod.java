@@ -39,4 +39,8 @@ class InvokableMethod implements Invokable {
     public boolean isStatic() {
         return Modifier.isStatic(method.getModifiers());
     }
+
+    Method getMethod() {
+        return method;
+    }
 }
@@ -0,0 +1,76 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.closure;
+
+/**
+ * An immutable snapshot of the activity of the cache of a memoized closure
+ *
+ * @author Mario Fusco
+ */
+public final class MemoizationStatistics {
+
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+
+    MemoizationStatistics(int size, long hits, long misses, long evictions, long expirations) {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    /**
+     * Returns the number of results currently cached
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns how many invocations returned a cached result
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how many invocations actually invoked the closure, including the ones whose cached result was expired
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of results removed from the cache because it was full
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of results removed from the cache because they were expired
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Returns the ratio between the hits and all the invocations or 0 if the closure has not been invoked yet
+     */
+    public double getHitRatio() {
+        long invocations = hits + misses;
+        return invocations == 0 ? 0.0 : (double)hits / invocations;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoizationStatistics[size=" + size + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", expirations=" + expirations + "]";
+    }
+}
@@ -19,6 +19,9 @@ public class Switcher<T> {
     private final List<Case<T>> cases = new ArrayList<Case<T>>();
     private Result<T> defaultResult;
 
+    private boolean compiled = false;
+    private Dispatcher dispatcher;
+
     /**
      * Adds a case that invokes the given closure when this switcher is executed on an object equal to the given one.
      * @param object The object to be matched
@@ -26,7 +29,7 @@ public class Switcher<T> {
      * @return The switcher itself
      */
     public Switcher<T> addCase(Object object, AbstractClosure closure) {
-        return addCase(equalTo(object), closure);
+        return addCase(new Case<T>(object, new ClosureResult<T>(closure)));
     }
 
     /**
@@ -36,8 +39,7 @@ public class Switcher<T> {
      * @return The switcher itself
      */
     public Switcher<T> addCase(Matcher<?> matcher, AbstractClosure closure) {
-        cases.add(new Case<T>(matcher, new ClosureResult<T>(closure)));
-        return this;
+        return addCase(new Case<T>(matcher, new ClosureResult<T>(closure)));
     }
 
     /**
@@ -47,7 +49,7 @@ public class Switcher<T> {
      * @return The switcher itself
      */
     public Switcher<T> addCase(Object object, T result) {
-        return addCase(equalTo(object), result);
+        return addCase(new Case<T>(object, new FixedResult<T>(result)));
     }
 
     /**
@@ -57,7 +59,12 @@ public class Switcher<T> {
      * @return The switcher itself
      */
     public Switcher<T> addCase(Matcher<?> matcher, T result) {
-        cases.add(new Case<T>(matcher, new FixedResult<T>(result)));
+        return addCase(new Case<T>(matcher, new FixedResult<T>(result)));
+    }
+
+    private Switcher<T> addCase(Case<T> c) {
+        cases.add(c);
+        dispatcher = null;
         return this;
     }
 
@@ -89,10 +96,36 @@ public class Switcher<T> {
      * @return The result of the matching case invocation
      */
     public T exec(Object match, Object ... args) {
-        for (Case<T> c : cases) { if (c.matches(match)) return c.exec(args); }
+        if (compiled) {
+            int caseIndex = getDispatcher().findCase(match);
+            if (caseIndex >= 0) return cases.get(caseIndex).exec(args);
+        } else {
+            for (Case<T> c : cases) { if (c.matches(match)) return c.exec(args); }
+        }
         return defaultResult != null ? defaultResult.exec(args) : null;
     }
 
+    /**
+     * Compiles this switcher so it finds the case to be executed through a hash table indexing the cases added
+     * with an object to be matched by equality, or an EnumMap if all those objects are constants of the same enum.
+     * Only the cases added with a Matcher are still evaluated in order, and only if they precede the case
+     * found in the table, so the first matching case is executed as before.
+     * This requires the objects to be matched to have an hashCode consistent with their equals method.
+     * The cases added after the compilation are indexed as well.
+     * @return The switcher itself
+     */
+    public Switcher<T> compile() {
+        compiled = true;
+        dispatcher = null;
+        return this;
+    }
+
+    private Dispatcher getDispatcher() {
+        Dispatcher d = dispatcher;
+        if (d == null) dispatcher = d = new Dispatcher(cases);
+        return d;
+    }
+
     /**
      * Executes with the given args all the cases matching the given match plus the defaut one
      * if it has been defined.
@@ -111,9 +144,22 @@ public class Switcher<T> {
         private final Matcher<?> matcher;
         private final Result<T> result;
 
+        private final boolean equalityCase;
+        private final Object object;
+
         private Case(Matcher<?> matcher, Result<T> result) {
             this.matcher = matcher;
             this.result = result;
+            equalityCase = false;
+            object = null;
+        }
+
+        private Case(Object object, Result<T> result) {
+            matcher = equalTo(object);
+            this.result = result;
+            // the arrays are matched by their content, so they cannot be used as keys of a hash table
+            equalityCase = object == null || !object.getClass().isArray();
+            this.object = object;
         }
 
         private boolean matches(Object match) {
@@ -125,6 +171,61 @@ public class Switcher<T> {
         }
     }
 
+    /**
+     * Finds the first case matching a given object. The cases matching by equality are indexed by the object they match
+     * while the other ones are kept in order and evaluated only if they precede the indexed case matching that object.
+     */
+    private static final class Dispatcher {
+        private final Map<Object, Integer> equalityCases;
+        private final Class<?> enumClass;
+        private final int[] matcherCases;
+        private final Matcher<?>[] matchers;
+
+        private Dispatcher(List<? extends Case<?>> cases) {
+            enumClass = getEnumClass(cases);
+            equalityCases = enumClass != null ? createEnumMap(enumClass) : new HashMap<Object, Integer>();
+            List<Integer> matcherCaseIndexes = new ArrayList<Integer>();
+            for (int i = 0; i < cases.size(); i++) {
+                Case<?> c = cases.get(i);
+                if (!c.equalityCase) matcherCaseIndexes.add(i);
+                else if (!equalityCases.containsKey(c.object)) equalityCases.put(c.object, i);
+            }
+            matcherCases = new int[matcherCaseIndexes.size()];
+            matchers = new Matcher<?>[matcherCases.length];
+            for (int i = 0; i < matcherCases.length; i++) {
+                matcherCases[i] = matcherCaseIndexes.get(i);
+                Case<?> matcherCase = cases.get(matcherCases[i]);
+                matchers[i] = matcherCase.matcher;
+            }
+        }
+
+        private static Class<?> getEnumClass(List<? extends Case<?>> cases) {
+            Class<?> enumClass = null;
+            for (Case<?> c : cases) {
+                if (!c.equalityCase) continue;
+                if (!(c.object instanceof Enum<?>)) return null;
+                Class<?> objectEnumClass = ((Enum<?>)c.object).getDeclaringClass();
+                if (enumClass == null) enumClass = objectEnumClass;
+                else if (enumClass != objectEnumClass) return null;
+            }
+            return enumClass;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map<Object, Integer> createEnumMap(Class<?> enumClass) {
+            return new EnumMap(enumClass);
+        }
+
+        private int findCase(Object match) {
+            Integer equalityCase = enumClass == null || enumClass.isInstance(match) ? equalityCases.get(match) : null;
+            int caseIndex = equalityCase != null ? equalityCase : Integer.MAX_VALUE;
+            for (int i = 0; i < matcherCases.length && matcherCases[i] < caseIndex; i++) {
+                if (matchers[i].matches(match)) return matcherCases[i];
+            }
+            return equalityCase != null ? caseIndex : -1;
+        }
+    }
+
     private interface Result<T> {
         /**
          * Evaluates a given matching case with the given args
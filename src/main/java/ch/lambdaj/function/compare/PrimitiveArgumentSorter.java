@@ -0,0 +1,134 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.compare;
+
+import java.util.*;
+
+import ch.lambdaj.function.argument.*;
+
+/**
+ * Sorts objects on the values of an argument returning a primitive number. Each argument is evaluated only once
+ * per item without boxing its value, instead of twice per comparison as it happens with an {@link ArgumentComparator}.
+ * The items with a null value are put at the end as done by the standard comparators.
+ * @author Mario Fusco
+ */
+public final class PrimitiveArgumentSorter {
+
+    private PrimitiveArgumentSorter() { }
+
+    /**
+     * Checks if the items can be sorted on the given argument with the given comparator by this sorter
+     * @param argument The argument on which the items have to be sorted
+     * @param comparator The comparator used to compare the values of the argument
+     * @return True if the argument returns a primitive number and the comparator is a standard one not ignoring case
+     */
+    public static boolean isSortable(Argument<?> argument, Comparator<?> comparator) {
+        Class<?> returnType = argument.getReturnType();
+        return returnType.isPrimitive() && returnType != boolean.class && returnType != void.class &&
+                (comparator == ComparatorUtil.DEFAULT_ARGUMENT_COMPARATOR || comparator == ComparatorUtil.DESCENDING_ARGUMENT_COMPARATOR);
+    }
+
+    /**
+     * Sorts the given items on the values of the given argument.
+     * @param iterator The items to be sorted
+     * @param argument The argument on which the items have to be sorted
+     * @param comparator Either the ascending or the descending standard comparator
+     * @return A list containing the sorted items
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> sort(Iterator<?> iterator, Argument<?> argument, Comparator<?> comparator) {
+        Class<?> returnType = argument.getReturnType();
+        boolean floating = returnType == double.class || returnType == float.class;
+        List<SortEntry> entries = new ArrayList<SortEntry>();
+        while (iterator.hasNext()) {
+            Object item = iterator.next();
+            entries.add(floating ? doubleEntry(item, argument) : longEntry(item, argument));
+        }
+        SortEntry[] sorted = entries.toArray(new SortEntry[entries.size()]);
+        Arrays.sort(sorted, comparator == ComparatorUtil.DESCENDING_ARGUMENT_COMPARATOR ? DESCENDING_ENTRY_COMPARATOR : ASCENDING_ENTRY_COMPARATOR);
+        List<T> result = new LinkedList<T>();
+        for (SortEntry entry : sorted) { result.add((T)entry.item); }
+        return result;
+    }
+
+    private static SortEntry longEntry(Object item, Argument<?> argument) {
+        long key = argument.evaluateLong(item, Long.MIN_VALUE);
+        return key == Long.MIN_VALUE && argument.evaluate(item) == null ? new SortEntry(item) : new LongSortEntry(item, key);
+    }
+
+    private static SortEntry doubleEntry(Object item, Argument<?> argument) {
+        double key = argument.evaluateDouble(item, Double.NaN);
+        return Double.isNaN(key) && argument.evaluate(item) == null ? new SortEntry(item) : new DoubleSortEntry(item, key);
+    }
+
+    private static class SortEntry {
+        final Object item;
+
+        SortEntry(Object item) {
+            this.item = item;
+        }
+
+        boolean isNull() {
+            return true;
+        }
+
+        int compareKey(SortEntry other) {
+            return 0;
+        }
+    }
+
+    private static final class LongSortEntry extends SortEntry {
+        private final long key;
+
+        LongSortEntry(Object item, long key) {
+            super(item);
+            this.key = key;
+        }
+
+        boolean isNull() {
+            return false;
+        }
+
+        int compareKey(SortEntry other) {
+            long otherKey = ((LongSortEntry)other).key;
+            return key < otherKey ? -1 : (key == otherKey ? 0 : 1);
+        }
+    }
+
+    private static final class DoubleSortEntry extends SortEntry {
+        private final double key;
+
+        DoubleSortEntry(Object item, double key) {
+            super(item);
+            this.key = key;
+        }
+
+        boolean isNull() {
+            return false;
+        }
+
+        int compareKey(SortEntry other) {
+            return Double.compare(key, ((DoubleSortEntry)other).key);
+        }
+    }
+
+    private static final Comparator<SortEntry> ASCENDING_ENTRY_COMPARATOR = new SortEntryComparator(false);
+    private static final Comparator<SortEntry> DESCENDING_ENTRY_COMPARATOR = new SortEntryComparator(true);
+
+    private static final class SortEntryComparator implements Comparator<SortEntry> {
+        private final boolean descending;
+
+        SortEntryComparator(boolean descending) {
+            this.descending = descending;
+        }
+
+        public int compare(SortEntry entry1, SortEntry entry2) {
+            if (entry1.isNull()) return entry2.isNull() ? 0 : 1;
+            if (entry2.isNull()) return -1;
+            int result = entry1.compareKey(entry2);
+            return descending ? -result : result;
+        }
+    }
+}
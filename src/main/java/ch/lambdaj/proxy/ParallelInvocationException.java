@@ -0,0 +1,38 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.proxy;
+
+import java.util.*;
+
+/**
+ * This exception is thrown when the invocation of a method on some of the objects proxied by a parallel forEach fails,
+ * when some of the invocations of a closure applied in parallel fail or when the aggregation of some chunks of a
+ * parallel aggregation fails.
+ * It collects all the failures, while the invocation on the other objects has been completed anyway.
+ * @author Mario Fusco
+ */
+public class ParallelInvocationException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+    private final List<Throwable> failures;
+
+    /**
+     * Creates an exception collecting the given failures
+     * @param invoked The name of the method or the description of the closure whose invocations failed
+     * @param failures The exceptions thrown by the failed invocations, at least one
+     */
+    public ParallelInvocationException(String invoked, List<Throwable> failures) {
+        super("The invocation of " + invoked + " failed on " + failures.size() + " items", failures.get(0));
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Returns all the exceptions thrown by the failed invocations. The first one is also the cause of this exception
+     */
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+}
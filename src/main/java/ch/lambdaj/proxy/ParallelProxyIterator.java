@@ -0,0 +1,170 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.proxy;
+
+import static ch.lambdaj.proxy.ProxyUtil.*;
+import ch.lambdaj.function.argument.*;
+import ch.lambdaj.util.iterator.*;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Proxies a list of objects in order to invoke a method on all of them in parallel by exposing the API of a single object.
+ * The list is split in chunks of at most splitThreshold items, each one processed by a task submitted to the given
+ * executor, while the last chunk is processed by the invoking thread. A failed invocation doesn't stop the others:
+ * all the failures are collected and thrown together in a {@link ParallelInvocationException}.
+ * The results of the invocations are returned in the same order of the proxied objects if the ordering is requested,
+ * otherwise in the order in which their chunks completed.
+ * @author Mario Fusco
+ */
+public class ParallelProxyIterator<T> extends InvocationInterceptor implements Iterable<T> {
+
+    /**
+     * The default maximum number of items processed by a single task
+     */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 1024;
+
+    private final List<? extends T> items;
+    private final Executor executor;
+    private final int splitThreshold;
+    private final boolean ordered;
+
+    /**
+     * Creates a proxy that invokes in parallel the methods on the items of the given list
+     * @param items The items on which the methods have to be invoked
+     * @param executor The executor running the parallel tasks
+     * @param splitThreshold The maximum number of items processed by a single task
+     * @param ordered True if the results of the invocations have to be in the same order of the items
+     */
+    protected ParallelProxyIterator(List<? extends T> items, Executor executor, int splitThreshold, boolean ordered) {
+        if (splitThreshold < 1) throw new IllegalArgumentException("The split threshold must be positive: " + splitThreshold);
+        this.items = items;
+        this.executor = executor;
+        this.splitThreshold = splitThreshold;
+        this.ordered = ordered;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object invoke(Object obj, Method method, Object[] args) {
+        if (method.getName().equals("iterator")) return iterator();
+        if (method.getName().equals("finalize")) return null;
+        List<Object> results = invokeOnItems(method, args);
+        if (method.getReturnType() == Void.TYPE) return null;
+        return ProxyIterator.createProxyIterator(new ResettableIteratorOnIterable<Object>(results), (Class<Object>)method.getReturnType());
+    }
+
+    private List<Object> invokeOnItems(Method method, Object[] args) {
+        int chunks = (items.size() + splitThreshold - 1) / splitThreshold;
+        Object[] orderedResults = ordered ? new Object[items.size()] : null;
+        List<Object> unorderedResults = ordered ? null : Collections.synchronizedList(new ArrayList<Object>(items.size()));
+        ChunkFailure[] failures = new ChunkFailure[chunks];
+        CountDownLatch latch = new CountDownLatch(chunks);
+
+        MethodInvoker invoker = MethodInvokers.getInvoker(method);
+        for (int i = 0; i < chunks; i++) {
+            Chunk chunk = new Chunk(i, invoker, args, orderedResults, unorderedResults, failures, latch);
+            if (i == chunks - 1) chunk.run();
+            else executor.execute(chunk);
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the parallel invocation of " + method.getName(), e);
+        }
+
+        List<Throwable> allFailures = new ArrayList<Throwable>();
+        for (ChunkFailure failure : failures) {
+            for (ChunkFailure f = failure; f != null; f = f.next) allFailures.add(f.failure);
+        }
+        if (!allFailures.isEmpty()) throw new ParallelInvocationException(method.getName(), allFailures);
+        return ordered ? Arrays.asList(orderedResults) : unorderedResults;
+    }
+
+    private final class Chunk implements Runnable {
+        private final int index;
+        private final MethodInvoker invoker;
+        private final Object[] args;
+        private final Object[] orderedResults;
+        private final List<Object> unorderedResults;
+        private final ChunkFailure[] failures;
+        private final CountDownLatch latch;
+
+        Chunk(int index, MethodInvoker invoker, Object[] args, Object[] orderedResults, List<Object> unorderedResults, ChunkFailure[] failures, CountDownLatch latch) {
+            this.index = index;
+            this.invoker = invoker;
+            this.args = args;
+            this.orderedResults = orderedResults;
+            this.unorderedResults = unorderedResults;
+            this.failures = failures;
+            this.latch = latch;
+        }
+
+        public void run() {
+            try {
+                int from = index * splitThreshold;
+                int to = Math.min(from + splitThreshold, items.size());
+                List<Object> chunkResults = ordered ? null : new ArrayList<Object>(to - from);
+                ChunkFailure lastFailure = null;
+                for (int i = from; i < to; i++) {
+                    Object result;
+                    try {
+                        result = invoker.invoke(items.get(i), args);
+                    } catch (Throwable t) {
+                        lastFailure = addFailure(lastFailure, t);
+                        continue;
+                    }
+                    if (ordered) orderedResults[i] = result;
+                    else chunkResults.add(result);
+                }
+                if (!ordered) unorderedResults.addAll(chunkResults);
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        private ChunkFailure addFailure(ChunkFailure lastFailure, Throwable failure) {
+            ChunkFailure chunkFailure = new ChunkFailure(failure);
+            if (lastFailure == null) failures[index] = chunkFailure;
+            else lastFailure.next = chunkFailure;
+            return chunkFailure;
+        }
+    }
+
+    // the failures of each chunk are linked in the order of the items and published through the latch
+    private static final class ChunkFailure {
+        private final Throwable failure;
+        private ChunkFailure next;
+
+        ChunkFailure(Throwable failure) {
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Creates a ParallelProxyIterator of the given class that invokes in parallel the methods on the given items
+     * @param items The items to be proxied
+     * @param clazz The class dinamically implemented by the newly created proxy
+     * @param executor The executor running the parallel tasks
+     * @param splitThreshold The maximum number of items processed by a single task
+     * @param ordered True if the results of the invocations have to be in the same order of the items
+     * @return The newly created proxy
+     */
+    public static <T> T createParallelProxyIterator(List<? extends T> items, Class<T> clazz, Executor executor, int splitThreshold, boolean ordered) {
+        return createIterableProxy(new ParallelProxyIterator<T>(items, executor, splitThreshold, ordered), clazz);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<T> iterator() {
+        return (Iterator<T>)items.iterator();
+    }
+}
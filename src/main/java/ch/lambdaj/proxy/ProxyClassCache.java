@@ -0,0 +1,100 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.proxy;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.cglib.proxy.*;
+
+import org.objenesis.*;
+
+import ch.lambdaj.util.ConcurrentWeakHashMap;
+
+/**
+ * Caches the cglib proxy classes by proxied class, implemented interfaces and callback types, so the creation
+ * of a proxy costs only its instantiation, done through Objenesis without invoking any constructor, and the
+ * setting of its callback. The proxied classes are weakly referenced and the proxy classes softly referenced,
+ * so they can be unloaded together with their class loader.
+ * @author Mario Fusco
+ */
+final class ProxyClassCache {
+
+    static final ProxyClassCache INSTANCE = new ProxyClassCache();
+
+    private final Objenesis objenesis = new ObjenesisStd();
+
+    private final ConcurrentWeakHashMap<Class<?>, ConcurrentMap<ProxyKey, SoftReference<Class<?>>>> proxyClasses =
+            new ConcurrentWeakHashMap<Class<?>, ConcurrentMap<ProxyKey, SoftReference<Class<?>>>>();
+
+    private ProxyClassCache() { }
+
+    /**
+     * Creates a proxy of the given class whose invocations are intercepted by the given callback
+     * @param callback The callback intercepting all the invocations on the proxy
+     * @param clazz The class to be proxied
+     * @param interfaces The interfaces that has to be implemented by the proxy
+     * @return The newly created proxy
+     * @throws IllegalArgumentException if cglib cannot generate a proxy class for the given class
+     */
+    Object createProxy(MethodInterceptor callback, Class<?> clazz, Class<?>... interfaces) {
+        Factory proxy = (Factory)objenesis.newInstance(getProxyClass(clazz, interfaces, MethodInterceptor.class));
+        proxy.setCallback(0, callback);
+        return proxy;
+    }
+
+    Class<?> getProxyClass(Class<?> clazz, Class<?>[] interfaces, Class<?> callbackType) {
+        ConcurrentMap<ProxyKey, SoftReference<Class<?>>> classProxies = proxyClasses.get(clazz);
+        if (classProxies == null) {
+            classProxies = new ConcurrentHashMap<ProxyKey, SoftReference<Class<?>>>();
+            ConcurrentMap<ProxyKey, SoftReference<Class<?>>> existingProxies = proxyClasses.putIfAbsent(clazz, classProxies);
+            if (existingProxies != null) classProxies = existingProxies;
+        }
+        ProxyKey key = new ProxyKey(interfaces, callbackType);
+        SoftReference<Class<?>> proxyClassRef = classProxies.get(key);
+        Class<?> proxyClass = proxyClassRef == null ? null : proxyClassRef.get();
+        if (proxyClass == null) {
+            // cglib caches the generated classes too, so a concurrent creation gets the same class
+            proxyClass = createProxyClass(clazz, interfaces, callbackType);
+            classProxies.put(key, new SoftReference<Class<?>>(proxyClass));
+        }
+        return proxyClass;
+    }
+
+    private Class<?> createProxyClass(Class<?> clazz, Class<?>[] interfaces, Class<?> callbackType) {
+        Enhancer enhancer = new Enhancer();
+        enhancer.setUseFactory(true);
+        enhancer.setSuperclass(clazz);
+        if (interfaces != null && interfaces.length > 0) enhancer.setInterfaces(interfaces);
+        enhancer.setCallbackType(callbackType);
+        return enhancer.createClass();
+    }
+
+    private static final class ProxyKey {
+        private final Class<?>[] interfaces;
+        private final Class<?> callbackType;
+        private final int hashCode;
+
+        ProxyKey(Class<?>[] interfaces, Class<?> callbackType) {
+            this.interfaces = interfaces == null ? new Class<?>[0] : interfaces;
+            this.callbackType = callbackType;
+            hashCode = 31 * Arrays.hashCode(this.interfaces) + callbackType.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ProxyKey)) return false;
+            ProxyKey other = (ProxyKey)obj;
+            return callbackType == other.callbackType && Arrays.equals(interfaces, other.interfaces);
+        }
+    }
+}
@@ -5,6 +5,7 @@
 package ch.lambdaj.proxy;
 
 import static ch.lambdaj.proxy.ProxyUtil.*;
+import ch.lambdaj.function.argument.*;
 import ch.lambdaj.util.iterator.*;
 
 import java.lang.reflect.*;
@@ -12,6 +13,10 @@ import java.util.*;
 
 /**
  * Proxies a list of objects in order to seamlessly iterate on them by exposing the API of a single object.
+ * A lazy ProxyIterator doesn't immediately invoke a method returning an object on all the proxied objects,
+ * but records it and returns another lazy proxy. The whole chain of recorded invocations is then performed
+ * walking the proxied objects only once when a terminal operation, like the iteration on the results or the
+ * invocation of a void method, takes place, without materializing any intermediate list.
  * @author Mario Fusco
  * @author Mattias Jiderhamn, adding ability to disable or enable
  */
@@ -24,12 +29,24 @@ public class ProxyIterator<T> extends InvocationInterceptor implements Iterable<
      */
     protected boolean enabled = true;
 
+    private final boolean lazy;
+
     /**
      * Creates a proxy that wraps the given Iterator in order to seamlessly iterate on them by exposing the API of a single object
      * @param proxiedIterator The Iterator to be proxied
      */
 	protected ProxyIterator(ResettableIterator<? extends T> proxiedIterator) {
+        this(proxiedIterator, false);
+	}
+
+    /**
+     * Creates a proxy that wraps the given Iterator in order to seamlessly iterate on them by exposing the API of a single object
+     * @param proxiedIterator The Iterator to be proxied
+     * @param lazy True if the invocations of the methods returning an object have to be deferred until a terminal operation
+     */
+	protected ProxyIterator(ResettableIterator<? extends T> proxiedIterator, boolean lazy) {
         this.proxiedIterator = proxiedIterator;
+        this.lazy = lazy;
 	}
 
     /**
@@ -37,10 +54,36 @@ public class ProxyIterator<T> extends InvocationInterceptor implements Iterable<
      */
     public Object invoke(Object obj, Method method, Object[] args) {
 		if (method.getName().equals("iterator")) return iterator();
-        if (enabled) return createProxyIterator(iterateOnValues(method, args), (Class<Object>)method.getReturnType());
-        return null; 
+        // the garbage collector must never trigger an invocation on the proxied objects
+        if (method.getName().equals("finalize")) return null;
+        if (!enabled) return null;
+        if (!lazy) return createProxyIterator(iterateOnValues(method, args), (Class<Object>)method.getReturnType());
+        if (method.getReturnType().isPrimitive()) {
+            // a void method or one returning a primitive cannot be chained, so it is a terminal operation
+            applyOnValues(method, args);
+            return null;
+        }
+        return createLazyProxyIterator(new LazyInvocationIterator(proxiedIterator, MethodInvokers.getInvoker(method), args), (Class<Object>)method.getReturnType());
 	}
 
+    private void applyOnValues(Method method, Object[] args) {
+        MethodInvoker invoker = MethodInvokers.getInvoker(method);
+        proxiedIterator.reset();
+        while (proxiedIterator.hasNext()) invokeOnValue(proxiedIterator.next(), invoker, args);
+    }
+
+    /**
+     * Returns an Iterator that lazily invokes the given method with the given arguments on all the objects
+     * in the iterator wrapped by this proxy while it is iterated
+     * @param method The method to be invoked
+     * @param args The arguments used to invoke the given method
+     * @return An Iterator over the results on all the invoctions of the given method
+     */
+    protected Iterator<Object> lazilyIterateOnValues(Method method, Object[] args) {
+        proxiedIterator.reset();
+        return new LazyInvocationIterator(proxiedIterator, MethodInvokers.getInvoker(method), args);
+    }
+
     /**
      * Invokes the given method with the given arguments on all the object in the iterator wrapped by this proxy
      * @param method The method to be invoked
@@ -49,28 +92,25 @@ public class ProxyIterator<T> extends InvocationInterceptor implements Iterable<
      */
 	protected ResettableIterator<Object> iterateOnValues(Method method, Object[] args) {
         if (method.getName().equals("finalize")) return null;
-        method.setAccessible(true);
+        MethodInvoker invoker = MethodInvokers.getInvoker(method);
         proxiedIterator.reset();
         List<Object> list = new LinkedList<Object>();
         while (proxiedIterator.hasNext()) {
-            try {
-                list.add(method.invoke(proxiedIterator.next(), args));
-            } catch (Exception e) {
-                Throwable cause = e.getCause();
-                if (cause != null) {
-                    if (cause instanceof RuntimeException) {
-                        throw (RuntimeException)cause;
-                    } else {
-                        throw new RuntimeException(cause);
-                    }
-                } else {
-                    throw new RuntimeException(e);
-                }
-            }
+            list.add(invokeOnValue(proxiedIterator.next(), invoker, args));
         }
 		return new ResettableIteratorOnIterable(list);
 	}
 
+    private static Object invokeOnValue(Object value, MethodInvoker invoker, Object[] args) {
+        try {
+            return invoker.invoke(value, args);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
     /**
      * Creates a ProxyIterator of the given class that wraps the given Iterator
      * @param proxiedIterator The Iterator to be proxied
@@ -81,6 +121,28 @@ public class ProxyIterator<T> extends InvocationInterceptor implements Iterable<
 		return createIterableProxy(new ProxyIterator<T>(proxiedIterator), clazz);
 	}
 
+    /**
+     * Creates a lazy ProxyIterator of the given class that wraps the given Iterator
+     * @param proxiedIterator The Iterator to be proxied
+     * @param clazz The class dinamically implemented by the newly created proxy
+     * @return The newly created proxy
+     */
+	public static <T> T createLazyProxyIterator(ResettableIterator<? extends T> proxiedIterator, Class<T> clazz) {
+		return createIterableProxy(new ProxyIterator<T>(proxiedIterator, true), clazz);
+	}
+
+    /**
+     * Creates a lazy ProxyIterator of the same class of the given item that wraps the given Iterator
+     * @param proxiedIterator The Iterator to be proxied
+     * @param firstItem An instance of the class dinamically implemented by the newly created proxy
+     * @return The newly created proxy
+     */
+    public static <T> T createLazyProxyIterator(ResettableIterator<? extends T> proxiedIterator, T firstItem) {
+        T proxy = createLazyProxyIterator(proxiedIterator, (Class<T>)firstItem.getClass());
+        proxiedIterator.reset();
+        return proxy;
+    }
+
     /**
      * Creates a ProxyIterator of the same class of the given item that wraps the given Iterator
      * @param proxiedIterator The Iterator to be proxied
@@ -98,6 +160,34 @@ public class ProxyIterator<T> extends InvocationInterceptor implements Iterable<
      */
     @SuppressWarnings("unchecked")
 	public Iterator<T> iterator() {
+        if (lazy) proxiedIterator.reset();
 		return (Iterator<T>)proxiedIterator;
 	}
+
+    /**
+     * Lazily invokes a method on each object returned by the wrapped iterator while iterating on it
+     */
+    private static final class LazyInvocationIterator extends ResettableIterator<Object> {
+        private final ResettableIterator<?> iterator;
+        private final MethodInvoker invoker;
+        private final Object[] args;
+
+        private LazyInvocationIterator(ResettableIterator<?> iterator, MethodInvoker invoker, Object[] args) {
+            this.iterator = iterator;
+            this.invoker = invoker;
+            this.args = args;
+        }
+
+        public void reset() {
+            iterator.reset();
+        }
+
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        public Object next() {
+            return invokeOnValue(iterator.next(), invoker, args);
+        }
+    }
 }
@@ -5,9 +5,6 @@
 package ch.lambdaj.proxy;
 
 
-import net.sf.cglib.proxy.Enhancer;
-import net.sf.cglib.proxy.MethodInterceptor;
-
 import java.lang.reflect.*;
 
 /**
@@ -46,7 +43,7 @@ public final class ProxyUtil {
         final ProxyIterator proxyIterator = (interceptor instanceof ProxyIterator) ? (ProxyIterator)interceptor : null;
         try {
             if (proxyIterator != null) proxyIterator.enabled = false;
-            return (T)createEnhancer(interceptor, clazz, implementedInterface).create();
+            return (T)ProxyClassCache.INSTANCE.createProxy(interceptor, clazz, implementedInterface);
         } catch (IllegalArgumentException iae) {
             if (Proxy.isProxyClass(clazz)) return (T)createNativeJavaProxy(clazz.getClassLoader(), interceptor, concatClasses(implementedInterface, clazz.getInterfaces()));
             if (isProxable(clazz)) return ClassImposterizer.INSTANCE.imposterise(interceptor, clazz, implementedInterface);
@@ -85,14 +82,6 @@ public final class ProxyUtil {
     // /// Private
     // ////////////////////////////////////////////////////////////////////////
     
-    private static Enhancer createEnhancer(MethodInterceptor interceptor, Class<?> clazz, Class<?> ... interfaces) {
-        Enhancer enhancer = new Enhancer();
-        enhancer.setCallback(interceptor);
-        enhancer.setSuperclass(clazz);
-        if (interfaces != null && interfaces.length > 0) enhancer.setInterfaces(interfaces);
-        return enhancer;
-    }
-
     private static Object createNativeJavaProxy(ClassLoader classLoader, InvocationHandler interceptor, Class<?> ... interfaces) {
         return Proxy.newProxyInstance(classLoader, interfaces, interceptor);
     }
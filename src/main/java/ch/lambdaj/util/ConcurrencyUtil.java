@@ -0,0 +1,62 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.util;
+
+import java.lang.reflect.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class consists exclusively of static methods that create the executors used to run the lambdaj tasks in parallel.
+ * @author Mario Fusco
+ */
+public final class ConcurrencyUtil {
+
+	private ConcurrencyUtil() {}
+
+    private static final Method VIRTUAL_THREAD_EXECUTOR_FACTORY = findVirtualThreadExecutorFactory();
+
+    private static final AtomicInteger THREADS_COUNTER = new AtomicInteger();
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the running JVM supports the virtual threads
+     * @return True if the executors created by {@link ConcurrencyUtil#newThreadPerTaskExecutor()} run each task in a virtual thread
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_EXECUTOR_FACTORY != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task on the runtimes supporting them.
+     * On the other runtimes the tasks are run by a cached pool of daemon threads, that creates a new thread
+     * only when all the existing ones are busy. It is well suited for the tasks mostly waiting for I/O.
+     * The returned executor should be shut down once it is no longer needed.
+     * @return A newly created executor
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        if (VIRTUAL_THREAD_EXECUTOR_FACTORY != null) {
+            try {
+                return (ExecutorService)VIRTUAL_THREAD_EXECUTOR_FACTORY.invoke(null);
+            } catch (Exception e) {
+                // the virtual threads are not available (e.g. disabled preview feature): fall back to the platform threads
+            }
+        }
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "lambdaj-task-" + THREADS_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
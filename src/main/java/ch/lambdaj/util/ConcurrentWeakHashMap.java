@@ -0,0 +1,154 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread safe map with weakly referenced keys. As in a {@link java.util.WeakHashMap} two keys are considered
+ * the same if they are identical or equal, and an entry is removed once its key is no longer strongly reachable.
+ * Lookups don't lock nor allocate a weak reference, while the stale entries are purged during the write operations.
+ * @author Mario Fusco
+ */
+public class ConcurrentWeakHashMap<K, V> {
+
+    private final ConcurrentMap<Key, V> map;
+    private final ReferenceQueue<K> queue = new ReferenceQueue<K>();
+
+    public ConcurrentWeakHashMap() {
+        map = new ConcurrentHashMap<Key, V>();
+    }
+
+    /**
+     * Creates a map partitioned in the given number of segments that can be concurrently updated
+     * @param concurrencyLevel The estimated number of concurrently updating threads
+     */
+    public ConcurrentWeakHashMap(int concurrencyLevel) {
+        map = new ConcurrentHashMap<Key, V>(16, 0.75f, concurrencyLevel);
+    }
+
+    /**
+     * Returns the value to which the given key is mapped or null if this map contains no mapping for it
+     * @param key The key whose associated value has to be returned
+     * @return The value associated with the given key
+     */
+    public V get(K key) {
+        return key == null ? null : map.get(new LookupKey(key));
+    }
+
+    /**
+     * Associates the given value with the given key
+     * @param key The key with which the value has to be associated
+     * @param value The value to be associated with the given key
+     * @return The value previously associated with the given key or null if there wasn't any
+     */
+    public V put(K key, V value) {
+        expungeStaleEntries();
+        return map.put(new WeakKey<K>(key, queue), value);
+    }
+
+    /**
+     * Associates the given value with the given key only if it isn't already associated with another value
+     * @param key The key with which the value has to be associated
+     * @param value The value to be associated with the given key
+     * @return The value already associated with the given key or null if the given value has been put in this map
+     */
+    public V putIfAbsent(K key, V value) {
+        expungeStaleEntries();
+        return map.putIfAbsent(new WeakKey<K>(key, queue), value);
+    }
+
+    /**
+     * Removes the mapping for the given key
+     * @param key The key whose mapping has to be removed
+     * @return The value previously associated with the given key or null if there wasn't any
+     */
+    public V remove(K key) {
+        expungeStaleEntries();
+        return key == null ? null : map.remove(new LookupKey(key));
+    }
+
+    /**
+     * Returns the number of entries in this map, including the ones whose key has been garbage collected
+     * but that have not been purged yet
+     */
+    public int size() {
+        expungeStaleEntries();
+        return map.size();
+    }
+
+    private void expungeStaleEntries() {
+        for (Object staleKey = queue.poll(); staleKey != null; staleKey = queue.poll()) {
+            map.remove(staleKey);
+        }
+    }
+
+    /**
+     * A key of the map. The weak keys stored in the map and the strong ones used only to look them up
+     * are equal if the objects they refer to are identical or equal.
+     */
+    private interface Key {
+        Object getKey();
+    }
+
+    private static boolean areSameKeys(Key key, Object other) {
+        if (other == key) return true;
+        if (!(other instanceof Key)) return false;
+        Object referent = key.getKey();
+        Object otherReferent = ((Key)other).getKey();
+        return referent != null && (referent == otherReferent || referent.equals(otherReferent));
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> implements Key {
+
+        private final int hashCode;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            if (key == null) throw new NullPointerException("A ConcurrentWeakHashMap doesn't allow null keys");
+            hashCode = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public Object getKey() {
+            return get();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return areSameKeys(this, obj);
+        }
+    }
+
+    private static final class LookupKey implements Key {
+
+        private final Object key;
+
+        LookupKey(Object key) {
+            this.key = key;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return areSameKeys(this, obj);
+        }
+    }
+}
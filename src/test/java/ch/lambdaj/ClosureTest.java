@@ -10,6 +10,8 @@ import static org.junit.Assert.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.junit.*;
 
@@ -344,4 +346,282 @@ public class ClosureTest {
         ageSetter.apply(new Person("Mario", 37));
         assertEquals(37, me.getAge());
     }
+
+    @Test
+    public void testCompiledClosure() {
+        Closure4<Integer, Integer, Integer, Integer> closure4 = closure(Integer.class, Integer.class, Integer.class, Integer.class); {
+            of(this).doNonCommutativeOpOnInt(var(Integer.class), var(Integer.class), var(Integer.class), var(Integer.class));
+        }
+        assertFalse(closure4.isCompiled());
+        assertSame(closure4, closure4.compile());
+        assertTrue(closure4.isCompiled());
+
+        assertEquals((5 - 2) * (7 - 3), closure4.apply(5, 2, 7, 3));
+        assertEquals(asList((5 - 2) * (7 - 3)), closure4.each(asList(5), asList(2), asList(7), asList(3)));
+
+        Closure2<Integer, Integer> closure2 = closure4.curry1(5).curry2(7);
+        assertTrue(closure2.isCompiled());
+        assertEquals((5 - 2) * (7 - 3), closure2.apply(2, 3));
+    }
+
+    @Test
+    public void testCompiledClosureWithFixedArgs() {
+        Closure2<Integer, Integer> closure2 = closure(Integer.class, Integer.class); {
+            of(this).doNonCommutativeOpOnInt(var(Integer.class), 2, var(Integer.class), 3);
+        }
+        closure2.compile();
+        assertTrue(closure2.isCompiled());
+        assertEquals((5 - 2) * (4 - 3), closure2.apply(5, 4));
+
+        try {
+            closure2.apply(5, null);
+            fail("must throw WrongClosureInvocationException");
+        } catch (WrongClosureInvocationException e) { }
+    }
+
+    @Test
+    public void testCompiledClosureOnClass() {
+        Closure2<Person, Integer> ageSetter = closure(Person.class, Integer.class); {
+            of(Person.class).setAge(var(Integer.class));
+        }
+        testClosureOnClass(ageSetter.compile());
+        assertTrue(ageSetter.isCompiled());
+
+        try {
+            ((Closure2)ageSetter).apply(35, 35);
+            fail("must throw WrongClosureInvocationException");
+        } catch (WrongClosureInvocationException e) { }
+    }
+
+    @Test
+    public void testCompiledUntypedClosure() {
+        Person me = new Person("Mario");
+        Closure ageSetter = closure(); {
+            of(me).setAge(var(Person.class).getAge());
+        }
+        ageSetter.compile();
+        assertTrue(ageSetter.isCompiled());
+        ageSetter.apply(new Person("Mario", 37));
+        assertEquals(37, me.getAge());
+
+        try {
+            ageSetter.apply();
+            fail("must throw WrongClosureInvocationException");
+        } catch (WrongClosureInvocationException e) { }
+    }
+
+    @Test
+    public void testCompiledStaticClosure() {
+        Closure1<String> intParser = closure(String.class).of(Integer.class, "parseInt", var(String.class)).compile();
+        assertTrue(intParser.isCompiled());
+        assertEquals(666, intParser.apply("666"));
+
+        try {
+            intParser.apply("mario");
+            fail("must throw WrongClosureInvocationException");
+        } catch (WrongClosureInvocationException e) {
+            assertTrue(e.getCause() instanceof NumberFormatException);
+        }
+
+        Closure1<String> toUpperCase = closure(String.class).of(String.class, "toUpperCase").compile();
+        assertTrue(toUpperCase.isCompiled());
+        assertEquals("MARIO", toUpperCase.apply("mario"));
+    }
+
+    @Test
+    public void testCompiledClosureOnNotAccessibleClass() {
+        Closure1<Integer> doubler = closure(Integer.class); {
+            of(new Doubler()).doubleIt(var(Integer.class));
+        }
+        doubler.compile();
+        assertFalse(doubler.isCompiled());
+        assertEquals(8, doubler.apply(4));
+    }
+
+    @Test
+    public void testFrozenClosure() throws Exception {
+        Closure4<Integer, Integer, Integer, Integer> closure4 = closure(Integer.class, Integer.class, Integer.class, Integer.class); {
+            of(this).doNonCommutativeOpOnInt(var(Integer.class), var(Integer.class), var(Integer.class), var(Integer.class));
+        }
+        final Closure4<Integer, Integer, Integer, Integer> frozen = closure4.freeze();
+        assertNotSame(closure4, frozen);
+        assertFalse(closure4.isFrozen());
+        assertTrue(frozen.isFrozen());
+        assertSame(frozen, frozen.freeze());
+
+        Closure3<Integer, Integer, Integer> curried = frozen.curry1(5);
+        assertTrue(curried.isFrozen());
+        assertEquals((5 - 2) * (7 - 3), curried.apply(2, 7, 3));
+
+        try {
+            frozen.of(this, "doNonCommutativeOpOnInt", 1, 2, 3, 4);
+            fail("a frozen closure cannot be redefined");
+        } catch (UnsupportedOperationException e) { }
+        assertEquals((5 - 2) * (7 - 3), frozen.apply(5, 2, 7, 3));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (int i = 0; i < 100; i++) {
+                final int val = i;
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        return frozen.apply(val, 1, 3, 2);
+                    }
+                }));
+            }
+            for (int i = 0; i < 100; i++) { assertEquals(i - 1, results.get(i).get()); }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFreezeUndefinedClosure() {
+        new Closure1<Integer>().freeze();
+    }
+
+    @Test
+    public void testApplyAsync() throws Exception {
+        Closure2<Integer, Integer> adder = closure(Integer.class, Integer.class); {
+            of(this).add(var(Integer.class), var(Integer.class));
+        }
+        ExecutorService executor = newThreadPerTaskExecutor();
+        try {
+            Future<Object> sum = adder.applyAsync(executor, 2, 3);
+            assertEquals(2 + 3, sum.get());
+
+            try {
+                adder.applyAsync(executor, 2, null).get();
+                fail("must throw ExecutionException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof WrongClosureInvocationException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEachParallel() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        Closure1<Integer> slowDoubler = closure(Integer.class); {
+            of(new SlowDoubler(running, maxRunning)).doubleIt(var(Integer.class));
+        }
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) values.add(i);
+
+        ExecutorService executor = newThreadPerTaskExecutor();
+        try {
+            List<?> doubled = slowDoubler.eachParallel(executor, 3, values);
+            assertEquals(20, doubled.size());
+            for (int i = 0; i < 20; i++) assertEquals(i * 2, doubled.get(i));
+            assertTrue(maxRunning.get() <= 3);
+
+            values.set(5, null);
+            values.set(7, null);
+            try {
+                slowDoubler.eachParallel(executor, 0, values);
+                fail("must throw ParallelInvocationException");
+            } catch (ch.lambdaj.proxy.ParallelInvocationException e) {
+                assertEquals(2, e.getFailures().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static class SlowDoubler {
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+
+        public SlowDoubler(AtomicInteger running, AtomicInteger maxRunning) {
+            this.running = running;
+            this.maxRunning = maxRunning;
+        }
+
+        public int doubleIt(int value) throws InterruptedException {
+            int current = running.incrementAndGet();
+            while (maxRunning.get() < current && !maxRunning.compareAndSet(maxRunning.get(), current));
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return value * 2;
+        }
+    }
+
+    @Test
+    public void testMemoizedClosure() {
+        CountingLookup lookup = new CountingLookup();
+        Closure1<String> closure = closure(String.class); {
+            of(lookup).lookup(var(String.class));
+        }
+        Closure1<String> memoized = closure.compile().memoize(2);
+        assertNull(closure.getMemoizationStatistics());
+
+        assertEquals("A", memoized.apply("a"));
+        assertEquals("A", memoized.apply("a"));
+        assertEquals(1, lookup.invocations.get());
+
+        memoized.apply("b");
+        memoized.apply("c");
+        assertEquals("A", memoized.apply("a"));
+        assertEquals(4, lookup.invocations.get());
+
+        MemoizationStatistics statistics = memoized.getMemoizationStatistics();
+        assertEquals(2, statistics.getSize());
+        assertEquals(1, statistics.getHits());
+        assertEquals(4, statistics.getMisses());
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(0.2, statistics.getHitRatio(), 0.0001);
+
+        closure.apply("a");
+        assertEquals(5, lookup.invocations.get());
+    }
+
+    @Test
+    public void testMemoizedClosureEvictsLeastRecentlyUsed() {
+        CountingLookup lookup = new CountingLookup();
+        Closure1<String> memoized = closure(String.class).of(lookup, "lookup", var(String.class)).memoize(10);
+
+        for (int i = 0; i < 10; i++) memoized.apply("key" + i);
+        for (int i = 0; i < 10; i++) memoized.apply("key" + i);
+        assertEquals(10, lookup.invocations.get());
+        assertEquals(0, memoized.getMemoizationStatistics().getEvictions());
+
+        memoized.apply("key10");
+        memoized.apply("key1");
+        assertEquals(11, lookup.invocations.get());
+        memoized.apply("key0");
+        assertEquals(12, lookup.invocations.get());
+        assertEquals(2, memoized.getMemoizationStatistics().getEvictions());
+        assertEquals(10, memoized.getMemoizationStatistics().getSize());
+    }
+
+    @Test
+    public void testMemoizedClosureExpiration() throws Exception {
+        CountingLookup lookup = new CountingLookup();
+        Closure1<String> memoized = closure(String.class).of(lookup, "lookup", var(String.class)).memoize(10, 1, TimeUnit.MILLISECONDS);
+
+        memoized.apply("a");
+        Thread.sleep(10);
+        memoized.apply("a");
+        assertEquals(2, lookup.invocations.get());
+        assertEquals(1, memoized.getMemoizationStatistics().getExpirations());
+    }
+
+    public static class CountingLookup {
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        public String lookup(String key) {
+            invocations.incrementAndGet();
+            return key.toUpperCase();
+        }
+    }
+
+    static class Doubler {
+        public int doubleIt(int value) {
+            return value * 2;
+        }
+    }
 }
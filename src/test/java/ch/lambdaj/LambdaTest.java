@@ -10,12 +10,14 @@ import static org.hamcrest.Matchers.*;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.math.*;
 
 import org.hamcrest.*;
 import org.junit.*;
 import static org.junit.Assert.*;
 
+import ch.lambdaj.function.aggregate.*;
 import ch.lambdaj.function.argument.*;
 import ch.lambdaj.function.convert.*;
 import ch.lambdaj.mock.*;
@@ -67,6 +69,156 @@ public class LambdaTest {
 		for (Person person : personInFamily) assertEquals("Fusco", person.getLastName());
 	}
 
+    @Test
+    public void testForEachLazy() {
+        List<Person> personInFamily = asList(new Person("Domenico"), new Person("Mario"), new Person("Irma"));
+        for (Person person : personInFamily) person.setBestFriend(new Person(person.getFirstName() + "'s friend"));
+
+        Person bestFriends = forEachLazy(personInFamily).getBestFriend();
+        bestFriends.setLastName("Fusco");
+        for (Person person : personInFamily) assertEquals("Fusco", person.getBestFriend().getLastName());
+
+        List<String> names = new ArrayList<String>();
+        for (Object friend : (Iterable<?>)forEachLazy(personInFamily, Person.class).getBestFriend()) names.add(((Person)friend).getFirstName());
+        assertEquals(asList("Domenico's friend", "Mario's friend", "Irma's friend"), names);
+    }
+
+    @Test
+    public void testForEachLazyDoesNotInvokeUnconsumedMethods() {
+        List<Person> personInFamily = asList(new Person("Domenico"), new PersonThrowingException());
+        forEachLazy(personInFamily).getBestFriend();
+        try {
+            forEachLazy(personInFamily).setLastName("Fusco");
+            fail("Must throw a RuntimeException");
+        } catch (RuntimeException e) {
+            assertEquals("Cannot set last name", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testForEachParallel() throws Exception {
+        List<Person> persons = new ArrayList<Person>();
+        for (int i = 0; i < 1000; i++) {
+            Person person = new Person("Person" + i, i);
+            person.setBestFriend(new Person("Friend" + i, i));
+            persons.add(person);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            forEachParallel(persons, Person.class, executor, 64, false).setLastName("Fusco");
+            for (Person person : persons) assertEquals("Fusco", person.getLastName());
+
+            int i = 0;
+            for (Object friend : (Iterable<?>)forEachParallel(persons, Person.class, executor, 64, true).getBestFriend()) {
+                assertEquals("Friend" + i, ((Person)friend).getFirstName());
+                i++;
+            }
+            assertEquals(1000, i);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testForEachParallelAggregatesFailures() {
+        List<Person> persons = asList(new PersonThrowingException(), new Person("Mario"), new PersonThrowingException(), new Person("Irma"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            forEachParallel(persons, Person.class, executor, 1, true).setLastName("Fusco");
+            fail("Must throw a ParallelInvocationException");
+        } catch (ParallelInvocationException e) {
+            assertEquals(2, e.getFailures().size());
+            assertEquals("Cannot set last name", e.getCause().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("Fusco", persons.get(1).getLastName());
+        assertEquals("Fusco", persons.get(3).getLastName());
+    }
+
+    @Test
+    public void testAggregateParallel() {
+        List<Person> persons = new ArrayList<Person>();
+        List<Integer> ages = new ArrayList<Integer>();
+        for (int i = 0; i < 5000; i++) {
+            persons.add(new Person("Person" + i, (i * 37) % 101));
+            ages.add(i % 3 == 1 ? null : (i * 37) % 101);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(sum(persons, on(Person.class).getAge()), sumParallel(persons, on(Person.class).getAge(), executor));
+            assertEquals(avg(persons, on(Person.class).getAge()), avgParallel(persons, on(Person.class).getAge(), executor));
+            assertEquals(min(persons, on(Person.class).getAge()), minParallel(persons, on(Person.class).getAge(), executor));
+            assertEquals(max(persons, on(Person.class).getAge()), maxParallel(persons, on(Person.class).getAge(), executor));
+            assertEquals(join(persons, "-"), joinParallel(persons, "-", executor));
+
+            assertEquals(sum(ages), sumParallel(ages, executor));
+            assertEquals(sum(ages), sumParallel(ages.toArray(), executor));
+            assertEquals(avg(ages), avgParallel(ages, executor));
+            assertEquals(sum(ages), aggregateParallel(ages, new Sum(), executor, 7));
+            assertEquals(0.0, sumParallel(new ArrayList<Integer>(), executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAggregateParallelFailures() {
+        Sum failingSum = new Sum() {
+            public Number aggregate(Number first, Number second) {
+                if (second.intValue() % 4 == 3) throw new IllegalArgumentException("Cannot sum " + second);
+                return super.aggregate(first, second);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            aggregateParallel(asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), failingSum, executor, 2);
+            fail("Must throw a ParallelInvocationException");
+        } catch (ParallelInvocationException e) {
+            assertEquals(2, e.getFailures().size());
+            assertEquals("Cannot sum 3", e.getCause().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStats() {
+        List<Person> persons = asList(new Person("Domenico", 70), new Person("Mario", 35), new Person("Irma", 29), new Person("Giovanni", 2));
+        Statistics ages = stats(persons, on(Person.class).getAge());
+        assertEquals(4, ages.getCount());
+        assertEquals(136.0, ages.getSum(), 0.0);
+        assertEquals(2.0, ages.getMin(), 0.0);
+        assertEquals(70.0, ages.getMax(), 0.0);
+        assertEquals(34.0, ages.getMean(), 0.0);
+        assertEquals((36.0 * 36 + 1 + 25 + 32 * 32) / 4, ages.getVariance(), 1e-9);
+
+        List<Statistics> statistics = stats(persons, on(Person.class).getIncome(), on(Person.class).getBigDecimalIncome());
+        assertEquals(2, statistics.size());
+        assertEquals(136.0 * 1.1, statistics.get(0).getSum(), 1e-9);
+        assertEquals(statistics.get(0).getVariance(), statistics.get(1).getVariance(), 1e-9);
+
+        Statistics empty = stats(new ArrayList<Person>(), on(Person.class).getAge());
+        assertEquals(0, empty.getCount());
+        assertTrue(Double.isNaN(empty.getMean()));
+    }
+
+    @Test
+    public void testMergeStatistics() {
+        StatisticsAccumulator all = new StatisticsAccumulator();
+        StatisticsAccumulator first = new StatisticsAccumulator();
+        StatisticsAccumulator second = new StatisticsAccumulator();
+        for (int i = 0; i < 100; i++) {
+            double value = 1e9 + (i * 7) % 13;
+            all.add(value);
+            (i < 30 ? first : second).add(value);
+        }
+        first.merge(second);
+        assertEquals(all.getStatistics().getMean(), first.getStatistics().getMean(), 1e-6);
+        assertEquals(all.getStatistics().getVariance(), first.getStatistics().getVariance(), 1e-6);
+        assertEquals(1e9, first.getStatistics().getMin(), 0.0);
+    }
+
     @Test
     public void testForEachThrowingException() {
         List<Person> personInFamily = asList(new Person("Domenico"), new Person("Mario"), new PersonThrowingException());
@@ -657,6 +809,42 @@ public class LambdaTest {
 		assertThat(max(meAndMyFriends, on(Person.class).getAge()), is(equalTo(39)));
 	}
 	
+
+    @Test
+    public void testAvgIsStateless() {
+        Avg avg = new Avg();
+        assertEquals(2, aggregate(asList(1, 2, 3), avg));
+        assertEquals(2, aggregate(asList(1, 2, 3), avg));
+
+        List<Person> meAndMyFriends = asList(me, luca, biagio, celestino);
+        Person averagePerson = avgFrom(meAndMyFriends);
+        assertEquals((35+29+39+29)/4, averagePerson.getAge());
+        assertEquals((35+29+39+29)/4, averagePerson.getAge());
+    }
+
+    @Test
+    public void testCompensatedAvg() {
+        List<Double> values = asList(1.0, 1e100, 1.0, -1e100);
+        assertEquals(0.5, avg(values));
+        assertEquals(0.5, avgParallel(values, Executors.newSingleThreadExecutor()));
+
+        List<BigDecimal> decimals = asList(BigDecimal.ONE, BigDecimal.ZERO, BigDecimal.ZERO);
+        assertEquals(new BigDecimal("0.3333333"), aggregate(decimals, new Avg(MathContext.DECIMAL32)));
+        try {
+            aggregate(decimals, new Avg());
+            fail("Must throw an ArithmeticException");
+        } catch (ArithmeticException e) { }
+    }
+    @Test
+    public void testTypedSumMinMaxWithNulls() {
+        List<Person> meAndMyFriends = asList(me, null, luca, biagio, null, celestino);
+        assertThat(sum(meAndMyFriends, on(Person.class).getAge()), is(equalTo(35+29+39+29)));
+        assertThat(min(meAndMyFriends, on(Person.class).getAge()), is(equalTo(29)));
+        assertThat(max(meAndMyFriends, on(Person.class).getIncome()), is(equalTo(biagio.getIncome())));
+        assertNull(min(asList(null, null), on(Person.class).getAge()));
+        assertNull(max(new ArrayList<Person>(), on(Person.class).getIncome()));
+    }
+
 	@Test
 	public void testTypedSum2() {
 		List<Person> myFriends = asList(luca, biagio, celestino);
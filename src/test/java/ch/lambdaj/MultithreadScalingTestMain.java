@@ -0,0 +1,59 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj;
+
+import static ch.lambdaj.Lambda.extract;
+import static ch.lambdaj.Lambda.on;
+import static ch.lambdaj.Lambda.sum;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ch.lambdaj.MultithreadTestMain.SomeClass;
+
+/**
+ * Measures how the creation and the evaluation of arguments scale when the number of threads grows
+ * @author Mario Fusco
+ */
+public class MultithreadScalingTestMain {
+	private static final int INNER_LOOP_NUMBER = 100000;
+
+	public static void main(String[] args) throws InterruptedException {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		final List<SomeClass> list = Arrays.asList(new SomeClass("1", 0.1D), new SomeClass("2", 0.2D), new SomeClass("3", 0.3D));
+
+		runWith(1, list); // warm up
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			long start = System.currentTimeMillis();
+			runWith(threads, list);
+			long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+			System.out.println(threads + " threads: " + (threads * INNER_LOOP_NUMBER * 1000L / elapsed) + " iterations/sec");
+		}
+		System.exit(0);
+	}
+
+	private static void runWith(int threads, final List<SomeClass> list) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Collection<Callable<Object>> tasks = new LinkedList<Callable<Object>>();
+		for (int i = 0; i < threads; i++) {
+			tasks.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					for (int j = 0; j < INNER_LOOP_NUMBER; j++) {
+						extract(list, on(SomeClass.class).getStringProperty());
+						sum(list, on(SomeClass.class).getDoubleProperty());
+					}
+					return null;
+				}
+			});
+		}
+		executor.invokeAll(tasks);
+		executor.shutdown();
+	}
+}
@@ -108,6 +108,42 @@ public class SwitcherTest {
         } catch (Exception e) { }
     }
 
+    @Test
+    public void testCompiledSwitchKeepsFirstMatch() {
+        Switcher<String> switcher = new Switcher<String>()
+                .addCase("a", "first a")
+                .addCase(new String[] { "c" }, "array")
+                .addCase(contains("b"), "contains b")
+                .addCase("b", "equal to b")
+                .addCase("a", "second a")
+                .addCase((Object)null, "null")
+                .setDefault("none")
+                .compile();
+
+        assertEquals("first a", switcher.exec("a"));
+        assertEquals("contains b", switcher.exec("b"));
+        assertEquals("contains b", switcher.exec("abc"));
+        assertEquals("array", switcher.exec(new String[] { "c" }));
+        assertEquals("none", switcher.exec("d"));
+
+        switcher.addCase("d", "equal to d");
+        assertEquals("equal to d", switcher.exec("d"));
+    }
+
+    @Test
+    public void testCompiledSwitchOnEnum() {
+        Switcher<Integer> switcher = new Switcher<Integer>()
+                .addCase(Gender.MALE, closure().of(this, "add", var(Integer.class), var(Integer.class)))
+                .addCase(Gender.FEMALE, closure().of(this, "mul", var(Integer.class), var(Integer.class)))
+                .compile();
+
+        assertTrue(9 == switcher.exec(Gender.MALE, 6, 3));
+        assertTrue(18 == switcher.exec(Gender.FEMALE, 6, 3));
+        assertNull(switcher.exec("MALE", 6, 3));
+    }
+
+    public enum Gender { MALE, FEMALE }
+
     private static Contains contains(String contained) {
         return new Contains(contained);
     }
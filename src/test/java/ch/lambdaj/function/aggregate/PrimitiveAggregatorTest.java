@@ -0,0 +1,76 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import static java.util.Arrays.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class PrimitiveAggregatorTest {
+
+	@Test
+	public void testIntSum() {
+		IntSum sum = new IntSum();
+		assertEquals(Integer.valueOf(6), sum.aggregate(asList(1, null, 2, 3).iterator()));
+		assertEquals(Integer.valueOf(6), sum.aggregate(asList(1, null, 2, 3).iterator()));
+		assertEquals(Integer.valueOf(10), sum.aggregate(4, asList(1, null, 2, 3).iterator()));
+	}
+
+	@Test
+	public void testAccumulatorsAreIndependent() {
+		IntSum sum = new IntSum();
+		IntSum.Accumulator first = sum.createAccumulator();
+		IntSum.Accumulator second = sum.createAccumulator();
+		first.add(2);
+		first.add(3);
+		second.add(7);
+		assertEquals(5, first.getSum());
+		assertEquals(2, first.getCount());
+		assertEquals(7, second.getSum());
+		assertEquals(1, second.getCount());
+	}
+
+	@Test
+	public void testLongSum() {
+		LongSum.Accumulator sum = new LongSum().createAccumulator();
+		sum.add(Integer.MAX_VALUE);
+		sum.add(Integer.MAX_VALUE);
+		assertEquals(2L * Integer.MAX_VALUE, sum.getSum());
+		assertEquals(Long.valueOf(2L * Integer.MAX_VALUE), sum.getResult());
+	}
+
+	@Test
+	public void testDoubleSum() {
+		assertEquals(4.0, new DoubleSum().aggregate(asList(1.5, 2.5).iterator()), 0.0);
+		assertEquals(2.0, new DoubleSum().aggregate(asList(1.0, 1e100, 1.0, -1e100).iterator()), 0.0);
+	}
+
+	@Test
+	public void testIntMinMax() {
+		IntMinMax minMax = new IntMinMax(true);
+		assertNull(minMax.createAccumulator().getResult());
+		assertEquals(Integer.valueOf(7), minMax.aggregate(asList(3, null, 7, -2).iterator()));
+		assertEquals(Integer.valueOf(5), minMax.aggregate(asList(5, 1).iterator()));
+		assertNull(minMax.aggregate(new ArrayList<Integer>().iterator()));
+
+		IntMinMax.Accumulator accumulator = minMax.createAccumulator();
+		accumulator.add(3);
+		accumulator.add(-2);
+		assertEquals(Integer.valueOf(-2), accumulator.getMin());
+		assertEquals(2, accumulator.getCount());
+	}
+
+	@Test
+	public void testLongAndDoubleMinMax() {
+		assertEquals(Long.valueOf(-5L), new LongMinMax(false).aggregate(asList(4L, -5L, 0L).iterator()));
+		assertEquals(Double.valueOf(2.5), new DoubleMinMax(true).aggregate(asList(1.0, 2.5, null).iterator()));
+	}
+}
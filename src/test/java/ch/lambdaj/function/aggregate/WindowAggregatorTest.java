@@ -0,0 +1,108 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.aggregate;
+
+import static ch.lambdaj.Lambda.*;
+import static java.util.Arrays.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import ch.lambdaj.mock.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class WindowAggregatorTest {
+
+	@Test
+	public void testTumblingWindows() {
+		WindowCollector<Number> collector = new WindowCollector<Number>();
+		WindowAggregator<Person, Number> windows = tumblingWindows(on(Person.class).getAge(), 5, new Sum(), on(Person.class).getAge(), collector);
+
+		windows.pushAll(persons(1, 2, 5, 7).iterator());
+		assertEquals("[[0, 5) => 3]", collector.windows.toString());
+		windows.push(new Person("Person12", 12));
+		windows.push(new Person("Person13", 13));
+		assertEquals(2, collector.windows.size());
+		windows.flush();
+		assertEquals("[[0, 5) => 3, [5, 10) => 12, [10, 15) => 25]", collector.windows.toString());
+		assertEquals(2, collector.windows.get(2).getCount());
+	}
+
+	@Test
+	public void testTumblingWindowsOfPrimitiveSum() {
+		WindowCollector<Integer> collector = new WindowCollector<Integer>();
+		WindowAggregator<Person, Integer> windows = tumblingWindows(on(Person.class).getAge(), 5, new IntSum(), on(Person.class).getAge(), collector);
+
+		windows.pushAll(persons(1, 2, 5, 7, 12).iterator());
+		windows.flush();
+		assertEquals("[[0, 5) => 3, [5, 10) => 12, [10, 15) => 12]", collector.windows.toString());
+	}
+
+	@Test
+	public void testSlidingWindows() {
+		WindowCollector<Object> collector = new WindowCollector<Object>();
+		WindowAggregator<Person, Object> windows = slidingWindows(on(Person.class).getAge(), 10, 5, new Concat(), on(Person.class).getFirstName(), collector);
+
+		windows.pushAll(persons(1, 6, 11).iterator());
+		assertEquals("[[-5, 5) => Person1, [0, 10) => Person1, Person6]", collector.windows.toString());
+		windows.flush();
+		assertEquals("[[-5, 5) => Person1, [0, 10) => Person1, Person6, [5, 15) => Person6, Person11, [10, 20) => Person11]", collector.windows.toString());
+	}
+
+	@Test
+	public void testSessionWindows() {
+		WindowCollector<Number> collector = new WindowCollector<Number>();
+		WindowAggregator<Person, Number> sessions = sessionWindows(on(Person.class).getAge(), 3, new Avg(), on(Person.class).getAge(), collector);
+
+		sessions.pushAll(persons(1, 2, 6, 10, 11).iterator());
+		assertEquals("[[1, 5) => 1, [6, 9) => 6]", collector.windows.toString());
+		sessions.advanceTo(20);
+		assertEquals("[[1, 5) => 1, [6, 9) => 6, [10, 14) => 10]", collector.windows.toString());
+
+		sessions.push(new Person("Late", 15));
+		assertEquals(1, sessions.getDiscardedItems());
+	}
+
+	@Test
+	public void testWindowsOfNonIncrementalAggregator() {
+		final List<Integer> aggregatedSizes = new ArrayList<Integer>();
+		Aggregator<Person> oldest = new Aggregator<Person>() {
+			public Person aggregate(Iterator<? extends Person> iterator) {
+				List<Person> persons = new ArrayList<Person>();
+				while (iterator.hasNext()) persons.add(iterator.next());
+				aggregatedSizes.add(persons.size());
+				return selectMax(persons, on(Person.class).getAge());
+			}
+		};
+		WindowCollector<Person> collector = new WindowCollector<Person>();
+		WindowAggregator<Person, Person> windows = tumblingWindows(on(Person.class).getAge(), 10, oldest, collector);
+
+		windows.pushAll(persons(3, 8, 4, 15).iterator());
+		windows.flush();
+		assertEquals(2, collector.windows.size());
+		assertEquals("Person8", collector.windows.get(0).getValue().getFirstName());
+		assertEquals("Person15", collector.windows.get(1).getValue().getFirstName());
+		assertEquals(asList(2, 1), aggregatedSizes);
+		assertEquals(1, windows.getDiscardedItems());
+	}
+
+	private List<Person> persons(int... ages) {
+		List<Person> persons = new ArrayList<Person>();
+		for (int age : ages) persons.add(new Person("Person" + age, age));
+		return persons;
+	}
+
+	private static class WindowCollector<A> implements WindowListener<A> {
+		private final List<Window<A>> windows = new ArrayList<Window<A>>();
+
+		public void windowClosed(Window<A> window) {
+			windows.add(window);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import org.junit.Test;
+
+import static ch.lambdaj.Lambda.on;
+import static ch.lambdaj.function.argument.ArgumentsFactory.actualArgument;
+import static org.junit.Assert.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class AccessorAnalyzerTest {
+
+    @Test
+    public void testRecognizeTrivialAccessors() throws Exception {
+        assertEquals(Bean.class.getField("name"), AccessorAnalyzer.getAccessedField(Bean.class.getMethod("getName")));
+        assertEquals(Bean.class.getField("size"), AccessorAnalyzer.getAccessedField(Bean.class.getMethod("getSize")));
+        assertNull(AccessorAnalyzer.getAccessedField(Bean.class.getMethod("getUpperName")));
+        assertNull(AccessorAnalyzer.getAccessedField(Bean.class.getMethod("toString")));
+    }
+
+    @Test
+    public void testAccessorOfShadowedField() throws Exception {
+        assertEquals(Bean.class.getField("name"), AccessorAnalyzer.getAccessedField(ShadowingBean.class.getMethod("getSuperName")));
+        assertEquals(ShadowingBean.class.getField("name"), AccessorAnalyzer.getAccessedField(ShadowingBean.class.getMethod("getShadowingName")));
+
+        InvocationSequence sequence = actualArgument(on(ShadowingBean.class).getSuperName()).getInvocationSequence();
+        Invoker invoker = new InvokerJitter(ShadowingBean.class.getClassLoader(), sequence).jitInvoker();
+        for (Invoker evaluator : new Invoker[] { sequence, invoker }) {
+            assertEquals("bean", evaluator.invokeOn(new ShadowingBean("bean")));
+        }
+    }
+
+    @Test
+    public void testFallbackOnOverriddenAccessor() {
+        InvocationSequence sequence = actualArgument(on(Bean.class).getName()).getInvocationSequence();
+        Invoker invoker = new InvokerJitter(Bean.class.getClassLoader(), sequence).jitInvoker();
+        for (Invoker evaluator : new Invoker[] { sequence, invoker }) {
+            assertEquals("bean", evaluator.invokeOn(new Bean("bean")));
+            assertEquals("overridden", evaluator.invokeOn(new OverridingBean("bean")));
+            assertEquals("bean", evaluator.invokeOn(new Bean("bean")));
+        }
+    }
+
+    @Test
+    public void testAlternatingReceiverClasses() {
+        InvocationSequence sequence = actualArgument(on(Bean.class).getName()).getInvocationSequence();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("bean", sequence.invokeOn(new Bean("bean")));
+            assertEquals("overridden", sequence.invokeOn(new OverridingBean("bean")));
+            assertEquals("extended", sequence.invokeOn(new ExtendedBean("extended")));
+        }
+    }
+
+    @Test
+    public void testPrimitiveFieldAccess() {
+        InvocationSequence sequence = actualArgument(on(Bean.class).getSize()).getInvocationSequence();
+        PrimitiveInvoker invoker = new InvokerJitter(Bean.class.getClassLoader(), sequence).jitInvoker();
+        Bean bean = new Bean("bean");
+        for (PrimitiveInvoker evaluator : new PrimitiveInvoker[] { sequence, invoker }) {
+            assertEquals(4, evaluator.invokeOn(bean));
+            assertEquals(4, evaluator.invokeOnInt(bean, -1));
+            assertEquals(4.0, evaluator.invokeOnDouble(bean, -1.0), 0.0);
+        }
+    }
+
+    public static class Bean {
+        public String name;
+        public int size;
+
+        public Bean() { }
+
+        public Bean(String name) {
+            this.name = name;
+            this.size = name.length();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public String getUpperName() {
+            return name.toUpperCase();
+        }
+    }
+
+    public static class OverridingBean extends Bean {
+        public OverridingBean(String name) {
+            super(name);
+        }
+
+        @Override
+        public String getName() {
+            return "overridden";
+        }
+    }
+
+    public static class ExtendedBean extends Bean {
+        public ExtendedBean(String name) {
+            super(name);
+        }
+    }
+
+    public static class ShadowingBean extends Bean {
+        public String name = "shadowing";
+
+        public ShadowingBean() { }
+
+        public ShadowingBean(String name) {
+            super(name);
+        }
+
+        public String getSuperName() {
+            return super.name;
+        }
+
+        public String getShadowingName() {
+            return name;
+        }
+    }
+}
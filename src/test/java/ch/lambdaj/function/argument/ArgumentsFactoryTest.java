@@ -8,9 +8,16 @@ import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.junit.Test;
 
+import ch.lambdaj.mock.Person;
+
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.*;
 
+import static ch.lambdaj.Lambda.on;
+import static ch.lambdaj.function.argument.ArgumentsFactory.actualArgument;
 import static ch.lambdaj.function.argument.ArgumentsFactory.createArgumentPlaceholder;
 import static ch.lambdaj.function.argument.ArgumentsFactory.registerFinalClassArgumentCreator;
 import static org.hamcrest.Matchers.instanceOf;
@@ -57,6 +64,18 @@ public class ArgumentsFactoryTest {
         assertTrue(createArgumentPlaceholder(LocalDate.class).equals(createArgumentPlaceholder(LocalDate.class)));
     }
 
+    @Test
+    public void testPreparePlaceholderCreation() {
+        ArgumentsFactory.preparePlaceholderCreation(IntegerWrapper.class, StringWrapper.class);
+        assertFalse(createArgumentPlaceholder(IntegerWrapper.class).equals(createArgumentPlaceholder(IntegerWrapper.class)));
+        assertFalse(createArgumentPlaceholder(StringWrapper.class).equals(createArgumentPlaceholder(StringWrapper.class)));
+
+        try {
+            ArgumentsFactory.preparePlaceholderCreation(UnistatiableClass.class);
+            fail("Should not be possible to prepare the placeholders creation for UnistatiableClass");
+        } catch (ArgumentConversionException e) { }
+    }
+
     public static class LocalDateArgumentCreator implements FinalClassArgumentCreator<LocalDate> {
         private final long MSECS_IN_DAY = 1000L * 60L * 60L * 24L;
         public LocalDate createArgumentPlaceHolder(int seed) {
@@ -110,4 +129,38 @@ public class ArgumentsFactoryTest {
         }
     }
 
+
+    @Test
+    public void testConcurrentArgumentsCreation() throws Exception {
+        int threads = 8;
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Argument<?>[]>> results = new ArrayList<Future<Argument<?>[]>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<Argument<?>[]>() {
+                    public Argument<?>[] call() throws Exception {
+                        barrier.await();
+                        Argument<?>[] arguments = new Argument<?>[3];
+                        for (int j = 0; j < 1000; j++) {
+                            arguments[0] = actualArgument(on(Person.class).getBestFriend().getLastName());
+                            arguments[1] = actualArgument(on(Person.class).getBestFriend().getAge());
+                            arguments[2] = actualArgument(on(Person.class).getBestFriend().isYoungerThan(j % 2));
+                        }
+                        return arguments;
+                    }
+                }));
+            }
+            Person person = new Person("Mario", 35);
+            person.setBestFriend(new Person("Domenico", "Fusco", 28));
+            for (Future<Argument<?>[]> result : results) {
+                Argument<?>[] arguments = result.get();
+                assertEquals("Fusco", arguments[0].evaluate(person));
+                assertEquals(28, arguments[1].evaluate(person));
+                assertEquals(false, arguments[2].evaluate(person));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -38,6 +38,17 @@ public class InvocationSequenceTest {
         assertThat(project(cars, SimpleBrand.class, on(Car.class).getBrand()), hasItem(new SimpleBrand("Ford")));
     }
 
+    @Test
+    public void testInvokeOnFlattenedSequence() {
+        ch.lambdaj.mock.Person person = new ch.lambdaj.mock.Person("Mario", 35);
+        InvocationSequence sequence = ArgumentsFactory.actualArgument(on(ch.lambdaj.mock.Person.class).getBestFriend().isYoungerThan(30)).getInvocationSequence();
+        assertNull(sequence.invokeOn(person));
+        assertNull(sequence.invokeOn(null));
+        person.setBestFriend(new ch.lambdaj.mock.Person("Domenico", 28));
+        assertEquals(true, sequence.invokeOn(person));
+        assertEquals(true, sequence.invokeOn(person));
+    }
+
     public static class SimpleBrand {
         private String brand;
 
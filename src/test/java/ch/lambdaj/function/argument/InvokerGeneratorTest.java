@@ -0,0 +1,95 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import ch.lambdaj.mock.Person;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Locale;
+import java.util.Properties;
+
+import static ch.lambdaj.Lambda.on;
+import static ch.lambdaj.function.argument.ArgumentsFactory.actualArgument;
+import static org.junit.Assert.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class InvokerGeneratorTest {
+
+    @Test
+    public void testGenerateInvokers() throws Exception {
+        File outputDirectory = new File(System.getProperty("java.io.tmpdir"), "lambdaj-invokers-" + System.nanoTime());
+        assertEquals(2, new InvokerGenerator(outputDirectory).generate(Company.class));
+
+        Properties index = new Properties();
+        InputStream stream = new FileInputStream(new File(outputDirectory, PrecompiledInvokers.INDEX_RESOURCE));
+        try {
+            index.load(stream);
+        } finally {
+            stream.close();
+        }
+        InvocationSequence sequence = actualArgument(on(Company.class).getOwner().getFirstName()).getInvocationSequence();
+        String invokerClassName = index.getProperty(PrecompiledInvokers.getKey(sequence));
+        assertNotNull(invokerClassName);
+
+        ClassLoader classLoader = new URLClassLoader(new URL[] { outputDirectory.toURI().toURL() }, getClass().getClassLoader());
+        Invoker invoker = InvokerJitter.newInvoker(classLoader.loadClass(invokerClassName), sequence);
+        assertEquals("Mario", invoker.invokeOn(new Company(new Person("Mario", 35))));
+        assertNull(invoker.invokeOn(new Company(null)));
+    }
+
+    @Test
+    public void testKeyOfSequenceWithArguments() {
+        assertEquals(Person.class.getName() + ".getBestFriend.getAge",
+                PrecompiledInvokers.getKey(actualArgument(on(Person.class).getBestFriend().getAge()).getInvocationSequence()));
+        assertNull(PrecompiledInvokers.getKey(actualArgument(on(Person.class).isYoungerThan(20)).getInvocationSequence()));
+    }
+
+    @Test
+    public void testAccessorNameIndependentFromDefaultLocale() throws Exception {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            File outputDirectory = new File(System.getProperty("java.io.tmpdir"), "lambdaj-invokers-" + System.nanoTime());
+            assertEquals(1, new InvokerGenerator(outputDirectory).generate(Identified.class));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownProperty() throws Exception {
+        new InvokerGenerator(new File(System.getProperty("java.io.tmpdir"))).generate(WrongCompany.class);
+    }
+
+    @PrecompiledArguments({ "owner.firstName", "owner.age" })
+    public static class Company {
+        private final Person owner;
+
+        public Company(Person owner) {
+            this.owner = owner;
+        }
+
+        public Person getOwner() {
+            return owner;
+        }
+    }
+
+    @PrecompiledArguments("id")
+    public static class Identified {
+        public int getId() {
+            return 1;
+        }
+    }
+
+    @PrecompiledArguments("unknown")
+    public static class WrongCompany { }
+}
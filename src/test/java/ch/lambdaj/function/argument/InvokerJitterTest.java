@@ -0,0 +1,217 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import ch.lambdaj.mock.Person;
+import java.lang.reflect.Method;
+import org.junit.Test;
+
+import static ch.lambdaj.Lambda.*;
+import static ch.lambdaj.function.argument.ArgumentsFactory.actualArgument;
+import static org.junit.Assert.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class InvokerJitterTest {
+
+    @Test
+    public void testJitInvocationWithPrimitiveArgument() {
+        InvocationSequence sequence = actualArgument(on(Person.class).isYoungerThan(30)).getInvocationSequence();
+        assertTrue(InvokerJitter.isJittable(sequence));
+        Invoker invoker = new InvokerJitter(Person.class.getClassLoader(), sequence).jitInvoker();
+        assertEquals(true, invoker.invokeOn(new Person("Domenico", 28)));
+        assertEquals(false, invoker.invokeOn(new Person("Mario", 35)));
+        assertNull(invoker.invokeOn(null));
+    }
+
+    @Test
+    public void testJitInvocationWithReferenceArguments() {
+        Person friend = new Person("Luca", 34);
+        InvocationSequence sequence = actualArgument(on(Greeter.class).greet("Hello", 2, friend)).getInvocationSequence();
+        assertTrue(InvokerJitter.isJittable(sequence));
+        Invoker invoker = new InvokerJitter(Greeter.class.getClassLoader(), sequence).jitInvoker();
+        assertEquals(sequence.invokeOn(new Greeter()), invoker.invokeOn(new Greeter()));
+        assertEquals("Hello Luca Hello Luca ", invoker.invokeOn(new Greeter()));
+    }
+
+    @Test
+    public void testProfiledJitWithReferenceArgumentOnSubclassReceiver() {
+        Person friend = new Person("Luca", 34);
+        InvocationSequence sequence = actualArgument(on(Greeter.class).greet("Hello", 1, friend)).getInvocationSequence();
+        assertEquals("Hello Luca ", sequence.invokeOn(new Greeter()));
+        Invoker invoker = new InvokerJitter(Greeter.class.getClassLoader(), sequence).jitInvoker();
+        assertEquals("Hello Luca ", invoker.invokeOn(new Greeter()));
+        assertEquals("Dear Hello Luca ", invoker.invokeOn(new PoliteGreeter()));
+    }
+
+    @Test
+    public void testJitInvocationsChainWithArgument() {
+        InvocationSequence sequence = actualArgument(on(Person.class).getBestFriend().isYoungerThan(30)).getInvocationSequence();
+        Invoker invoker = new InvokerJitter(Person.class.getClassLoader(), sequence).jitInvoker();
+        Person person = new Person("Mario", 35);
+        assertNull(invoker.invokeOn(person));
+        person.setBestFriend(new Person("Domenico", 28));
+        assertEquals(true, invoker.invokeOn(person));
+    }
+
+    @Test
+    public void testNotJittableInvocationOnNonPublicClass() {
+        InvocationSequence sequence = actualArgument(on(HiddenGreeter.class).greet("Hello", 1, null)).getInvocationSequence();
+        assertFalse(InvokerJitter.isJittable(sequence));
+    }
+
+    @Test
+    public void testJitPrimitiveEvaluation() {
+        Person person = new Person("Mario", 35);
+        person.setBestFriend(new Person("Domenico", 28));
+        assertPrimitiveEvaluation(actualArgument(on(Person.class).getBestFriend().getAge()).getInvocationSequence(), person, 28);
+        assertPrimitiveEvaluation(actualArgument(on(Person.class).getBestFriend().getAgeAsBigInteger()).getInvocationSequence(), person, 28);
+        assertPrimitiveEvaluation(actualArgument(on(Person.class).getBestFriend().getBestFriend().getAge()).getInvocationSequence(), person, -1);
+
+        InvocationSequence incomeSequence = actualArgument(on(Person.class).getIncome()).getInvocationSequence();
+        PrimitiveInvoker invoker = new InvokerJitter(Person.class.getClassLoader(), incomeSequence).jitInvoker();
+        assertEquals(incomeSequence.invokeOnDouble(person, -1), invoker.invokeOnDouble(person, -1), 0.0);
+        assertEquals((long)person.getIncome(), invoker.invokeOnLong(person, -1));
+    }
+
+    private void assertPrimitiveEvaluation(InvocationSequence sequence, Person person, int expected) {
+        PrimitiveInvoker invoker = new InvokerJitter(Person.class.getClassLoader(), sequence).jitInvoker();
+        for (PrimitiveInvoker evaluator : new PrimitiveInvoker[] { sequence, invoker }) {
+            assertEquals(expected, evaluator.invokeOnInt(person, -1));
+            assertEquals((long)expected, evaluator.invokeOnLong(person, -1L));
+            assertEquals((double)expected, evaluator.invokeOnDouble(person, -1.0), 0.0);
+            assertEquals(-1, evaluator.invokeOnInt(null, -1));
+        }
+    }
+
+    @Test
+    public void testEqualSequencesShareInvokerClass() throws Exception {
+        Invoker first = InvokerJitter.getInvoker(Person.class.getClassLoader(), youngerThanSequence(30));
+        Invoker second = InvokerJitter.getInvoker(Person.class.getClassLoader(), youngerThanSequence(30));
+        Invoker other = InvokerJitter.getInvoker(Person.class.getClassLoader(), youngerThanSequence(40));
+        assertSame(first.getClass(), second.getClass());
+        assertNotSame(first.getClass(), other.getClass());
+        assertEquals(false, second.invokeOn(new Person("Mario", 35)));
+        assertEquals(true, other.invokeOn(new Person("Mario", 35)));
+    }
+
+    @Test
+    public void testSequencesWithSameShapeShareInvokerClass() throws Exception {
+        Person mario = new Person("Mario", 35);
+        Person domenico = new Person("Domenico", 28);
+        Invoker withoutPerson = InvokerJitter.getInvoker(Greeter.class.getClassLoader(), greetSequence(null));
+        Invoker first = InvokerJitter.getInvoker(Greeter.class.getClassLoader(), greetSequence(mario));
+        Invoker second = InvokerJitter.getInvoker(Greeter.class.getClassLoader(), greetSequence(domenico));
+        assertSame(first.getClass(), second.getClass());
+        assertNotSame(first.getClass(), withoutPerson.getClass());
+        assertEquals("Hi  ", withoutPerson.invokeOn(new Greeter()));
+        assertEquals("Hi Mario ", first.invokeOn(new Greeter()));
+        assertEquals("Hi Domenico ", second.invokeOn(new Greeter()));
+    }
+
+    private InvocationSequence greetSequence(Person person) throws Exception {
+        Method greet = Greeter.class.getMethod("greet", String.class, int.class, Person.class);
+        Invocation invocation = new Invocation(Greeter.class, greet, new Object[] { "Hi", 1, person });
+        return new InvocationSequence(new InvocationSequence(Greeter.class), invocation);
+    }
+
+    private InvocationSequence youngerThanSequence(int age) throws Exception {
+        Invocation invocation = new Invocation(Person.class, Person.class.getMethod("isYoungerThan", int.class), new Object[] { age });
+        return new InvocationSequence(new InvocationSequence(Person.class), invocation);
+    }
+
+    @Test
+    public void testSynchronousJitAfterThreshold() {
+        enableJitting(true);
+        setJitMode(JitMode.SYNCHRONOUS);
+        setJitThreshold(3);
+        try {
+            InvocationSequence sequence = actualArgument(on(Greeter.class).greet("Hi", 1, null)).getInvocationSequence();
+            sequence.evaluate(new Greeter());
+            sequence.evaluate(new Greeter());
+            assertFalse(sequence.isJitted());
+            sequence.evaluate(new Greeter());
+            assertTrue(sequence.isJitted());
+        } finally {
+            resetJitting();
+        }
+    }
+
+    @Test
+    public void testEagerJit() {
+        enableJitting(true);
+        setJitMode(JitMode.EAGER);
+        try {
+            InvocationSequence sequence = actualArgument(on(Greeter.class).greet("Ciao", 1, null)).getInvocationSequence();
+            assertTrue(sequence.isJitted());
+        } finally {
+            resetJitting();
+        }
+    }
+
+    @Test
+    public void testInlineCacheOnProfiledReceivers() {
+        enableJitting(true);
+        setJitMode(JitMode.SYNCHRONOUS);
+        setJitThreshold(3);
+        try {
+            Argument<String> argument = actualArgument(on(Greeter.class).greet("Hey", 1, null));
+            assertEquals("Hey  ", argument.evaluate(new Greeter()));
+            assertEquals("Dear Hey  ", argument.evaluate(new PoliteGreeter()));
+            assertFalse(argument.getInvocationSequence().isJitted());
+
+            assertEquals("Hey  ", argument.evaluate(new Greeter()));
+            assertTrue(argument.getInvocationSequence().isJitted());
+            assertEquals("Dear Hey  ", argument.evaluate(new PoliteGreeter()));
+            assertEquals(2, argument.getInlineCacheHits());
+            assertEquals(0, argument.getInlineCacheMisses());
+
+            assertEquals("Hey  ", argument.evaluate(new HiddenGreeter()));
+            assertEquals(2, argument.getInlineCacheHits());
+            assertEquals(1, argument.getInlineCacheMisses());
+        } finally {
+            resetJitting();
+        }
+    }
+
+    @Test
+    public void testFallbackToReflectionOnUnexpectedReceiver() {
+        InvocationSequence sequence = actualArgument(on(Person.class).getBestFriend().getFirstName()).getInvocationSequence();
+        Person person = new Person("Mario", 35);
+        person.setBestFriend(new Person("Domenico", 28));
+        sequence.invokeOn(person);
+        Invoker invoker = new InvokerJitter(Person.class.getClassLoader(), sequence).jitInvoker();
+        assertEquals("Domenico", invoker.invokeOn(person));
+        try {
+            invoker.invokeOn(new Greeter());
+            fail("The evaluation on an object of a wrong class must fail as it does through reflection");
+        } catch (IllegalArgumentException e) { }
+        assertEquals(1, sequence.getInlineCacheMisses());
+    }
+
+    private void resetJitting() {
+        setJitThreshold(InvocationSequence.DEFAULT_JIT_THRESHOLD);
+        setJitMode(JitMode.ASYNCHRONOUS);
+        enableJitting(false);
+    }
+
+    public static class Greeter {
+        public String greet(String greeting, int times, Person person) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < times; i++) sb.append(greeting).append(" ").append(person == null ? "" : person.getFirstName()).append(" ");
+            return sb.toString();
+        }
+    }
+
+    public static class PoliteGreeter extends Greeter {
+        @Override
+        public String greet(String greeting, int times, Person person) {
+            return "Dear " + super.greet(greeting, times, person);
+        }
+    }
+
+    static class HiddenGreeter extends Greeter { }
+}
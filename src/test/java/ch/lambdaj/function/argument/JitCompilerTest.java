@@ -0,0 +1,89 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import ch.lambdaj.mock.Person;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static ch.lambdaj.Lambda.*;
+import static ch.lambdaj.function.argument.ArgumentsFactory.actualArgument;
+import static org.junit.Assert.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class JitCompilerTest {
+
+    @Before
+    public void setUp() {
+        setJitThreshold(1000);
+        enableJitting(true);
+    }
+
+    @After
+    public void tearDown() {
+        setJitThreshold(InvocationSequence.DEFAULT_JIT_THRESHOLD);
+        enableJitting(false);
+    }
+
+    @Test
+    public void testDropColdestSequenceWhenQueueIsFull() throws Exception {
+        InvocationSequence cold = evaluatedSequence(actualArgument(on(Person.class).isYoungerThan(11)), 1);
+        InvocationSequence warm = evaluatedSequence(actualArgument(on(Person.class).isYoungerThan(12)), 2);
+        InvocationSequence hot = evaluatedSequence(actualArgument(on(Person.class).isYoungerThan(13)), 3);
+
+        JitCompiler compiler = new JitCompiler(1, 1);
+        synchronized (compiler) {
+            // the worker cannot take anything from the queue until the monitor is released
+            assertTrue(compiler.submit(warm));
+            assertTrue(compiler.submit(hot));
+            assertFalse(compiler.submit(cold));
+            assertEquals(1, compiler.getStatistics().getQueued());
+            assertEquals(2, compiler.getStatistics().getDropped());
+        }
+
+        for (int i = 0; i < 100 && !hot.isJitted(); i++) Thread.sleep(10);
+        assertTrue(hot.isJitted());
+        assertFalse(warm.isJitted());
+        assertEquals(0, warm.getInvocationCounter());
+        JitStatistics statistics = compiler.getStatistics();
+        assertEquals(1, statistics.getCompiled());
+        assertEquals(0, statistics.getFailed());
+        assertEquals(0, statistics.getQueued());
+        compiler.shutdown();
+    }
+
+    @Test
+    public void testDroppedSequenceIsSubmittedAgain() {
+        setJitThreshold(2);
+        JitCompiler compiler = new JitCompiler(1, 1);
+        compiler.shutdown();
+        InvocationSequence sequence = evaluatedSequence(actualArgument(on(Person.class).isYoungerThan(14)), 1);
+        assertFalse(compiler.submit(sequence));
+
+        setJitMode(JitMode.SYNCHRONOUS);
+        try {
+            sequence.evaluate(new Person("Mario", 35));
+            assertFalse(sequence.isJitted());
+            sequence.evaluate(new Person("Mario", 35));
+            assertTrue(sequence.isJitted());
+        } finally {
+            setJitMode(JitMode.ASYNCHRONOUS);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() {
+        configureJitCompiler(0, 10);
+    }
+
+    private InvocationSequence evaluatedSequence(Argument<?> argument, int evaluations) {
+        InvocationSequence sequence = argument.getInvocationSequence();
+        for (int i = 0; i < evaluations; i++) sequence.evaluate(new Person("Mario", 35));
+        return sequence;
+    }
+}
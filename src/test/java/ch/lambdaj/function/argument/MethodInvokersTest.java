@@ -0,0 +1,88 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.function.argument;
+
+import ch.lambdaj.mock.Person;
+import ch.lambdaj.mock.PersonThrowingException;
+import org.junit.Test;
+
+import java.util.List;
+
+import static ch.lambdaj.Lambda.*;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class MethodInvokersTest {
+
+    @Test
+    public void testGeneratedInvoker() throws Throwable {
+        enableJitting(true);
+        try {
+            MethodInvoker youngerThan = MethodInvokers.getInvoker(Person.class.getMethod("isYoungerThan", int.class));
+            assertSame(youngerThan, MethodInvokers.getInvoker(Person.class.getMethod("isYoungerThan", int.class)));
+            assertTrue(youngerThan.getClass().getName().startsWith("ch.lambdaj.function.argument.MethodInvoker_"));
+            assertEquals(true, youngerThan.invoke(new Person("Domenico", 28), new Object[] { 30 }));
+            assertEquals(false, youngerThan.invoke(new Person("Mario", 35), new Object[] { 30 }));
+
+            MethodInvoker setLastName = MethodInvokers.getInvoker(Person.class.getMethod("setLastName", String.class));
+            Person person = new Person("Mario");
+            assertNull(setLastName.invoke(person, new Object[] { "Fusco" }));
+            assertEquals("Fusco", person.getLastName());
+            try {
+                setLastName.invoke(new PersonThrowingException(), new Object[] { "Fusco" });
+                fail("Must throw the exception of the invoked method");
+            } catch (RuntimeException e) {
+                assertEquals("Cannot set last name", e.getMessage());
+            }
+        } finally {
+            enableJitting(false);
+        }
+    }
+
+    @Test
+    public void testReflectiveInvoker() throws Throwable {
+        MethodInvoker getAge = MethodInvokers.getInvoker(Person.class.getMethod("getAge"));
+        assertEquals(35, getAge.invoke(new Person("Mario", 35), null));
+    }
+
+    @Test
+    public void testCachedReflectiveInvokerIsReplacedWhenJittingIsEnabled() throws Throwable {
+        MethodInvoker reflective = MethodInvokers.getInvoker(Counter.class.getMethod("next"));
+        assertSame(reflective, MethodInvokers.getInvoker(Counter.class.getMethod("next")));
+        enableJitting(true);
+        try {
+            MethodInvoker generated = MethodInvokers.getInvoker(Counter.class.getMethod("next"));
+            assertNotSame(reflective, generated);
+            assertTrue(generated.getClass().getName().startsWith("ch.lambdaj.function.argument.MethodInvoker_"));
+            assertEquals(1, generated.invoke(new Counter(), null));
+        } finally {
+            enableJitting(false);
+        }
+    }
+
+    @Test
+    public void testAggregationWithGeneratedInvokers() {
+        enableJitting(true);
+        try {
+            List<Person> persons = asList(new Person("Domenico", 28), new Person("Mario", 35), new Person("Irma", 25));
+            assertEquals(88, sumFrom(persons).getAge());
+            forEach(persons).setLastName("Fusco");
+            for (Person person : persons) assertEquals("Fusco", person.getLastName());
+        } finally {
+            enableJitting(false);
+        }
+    }
+
+    public static class Counter {
+        private int counter = 0;
+
+        public int next() {
+            return ++counter;
+        }
+    }
+}
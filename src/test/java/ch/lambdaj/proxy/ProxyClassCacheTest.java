@@ -0,0 +1,49 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.proxy;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import ch.lambdaj.mock.Person;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class ProxyClassCacheTest {
+
+    private static class NameInterceptor extends InvocationInterceptor {
+        private final String name;
+
+        NameInterceptor(String name) {
+            this.name = name;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return method.getName().equals("getFirstName") ? name : null;
+        }
+    }
+
+    @Test
+    public void testProxyClassIsReused() {
+        Person mario = ProxyUtil.createProxy(new NameInterceptor("Mario"), Person.class, false);
+        Person luca = ProxyUtil.createProxy(new NameInterceptor("Luca"), Person.class, false);
+        assertSame(mario.getClass(), luca.getClass());
+        assertEquals("Mario", mario.getFirstName());
+        assertEquals("Luca", luca.getFirstName());
+    }
+
+    @Test
+    public void testDifferentInterfacesUseDifferentClasses() {
+        Person person = ProxyUtil.createProxy(new NameInterceptor("Mario"), Person.class, false);
+        Person iterablePerson = ProxyUtil.createProxy(new NameInterceptor("Mario"), Person.class, false, Iterable.class);
+        assertNotSame(person.getClass(), iterablePerson.getClass());
+        assertFalse(person instanceof Iterable);
+        assertTrue(iterablePerson instanceof Iterable);
+    }
+}
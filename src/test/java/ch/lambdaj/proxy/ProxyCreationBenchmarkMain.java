@@ -0,0 +1,46 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.proxy;
+
+import java.lang.reflect.Method;
+
+import net.sf.cglib.proxy.Enhancer;
+
+import ch.lambdaj.mock.Person;
+
+/**
+ * Compares the creation of a proxy through a new cglib Enhancer with the one through the cached proxy classes
+ * @author Mario Fusco
+ */
+public class ProxyCreationBenchmarkMain {
+	private static final int ITERATIONS = 200000;
+
+	private static final InvocationInterceptor INTERCEPTOR = new InvocationInterceptor() {
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			return null;
+		}
+	};
+
+	public static void main(String[] args) {
+		for (int run = 0; run < 3; run++) { // the first run warms up the jvm
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) createWithEnhancer();
+			long enhancerTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) ProxyUtil.createProxy(INTERCEPTOR, Person.class, false);
+			long cachedTime = System.nanoTime() - start;
+
+			System.out.println("Enhancer: " + (enhancerTime / ITERATIONS) + " ns/proxy, cached class: " + (cachedTime / ITERATIONS) + " ns/proxy");
+		}
+	}
+
+	private static Object createWithEnhancer() {
+		Enhancer enhancer = new Enhancer();
+		enhancer.setCallback(INTERCEPTOR);
+		enhancer.setSuperclass(Person.class);
+		return enhancer.create();
+	}
+}
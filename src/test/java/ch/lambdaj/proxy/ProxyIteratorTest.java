@@ -0,0 +1,43 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.proxy;
+
+import static java.util.Arrays.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import ch.lambdaj.util.iterator.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class ProxyIteratorTest {
+
+    public static class FinalizeCounter {
+        private int finalized = 0;
+
+        @Override
+        protected void finalize() {
+            finalized++;
+        }
+    }
+
+    @Test
+    public void testFinalizeIsNotForwardedToTheProxiedObjects() throws Exception {
+        FinalizeCounter first = new FinalizeCounter();
+        FinalizeCounter second = new FinalizeCounter();
+        Method finalize = FinalizeCounter.class.getDeclaredMethod("finalize");
+        ResettableIterator<FinalizeCounter> items = new ResettableIteratorOnIterable<FinalizeCounter>(asList(first, second));
+
+        assertNull(new ProxyIterator<FinalizeCounter>(items, true).invoke(null, finalize, new Object[0]));
+        new ProxyIterator<FinalizeCounter>(items, false).invoke(null, finalize, new Object[0]);
+
+        assertEquals(0, first.finalized);
+        assertEquals(0, second.finalized);
+    }
+}
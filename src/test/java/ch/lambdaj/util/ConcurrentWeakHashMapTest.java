@@ -0,0 +1,51 @@
+// Modified or written by Lambdascale SRL for inclusion with lambdaj.
+// Copyright (c) 2009-2010 Mario Fusco.
+// Licensed under the Apache License, Version 2.0 (the "License")
+
+package ch.lambdaj.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mario Fusco
+ */
+public class ConcurrentWeakHashMapTest {
+
+    @Test
+    public void testEqualKeys() {
+        ConcurrentWeakHashMap<String, Integer> map = new ConcurrentWeakHashMap<String, Integer>();
+        String key = new String("key");
+        assertNull(map.putIfAbsent(key, 1));
+        assertEquals(Integer.valueOf(1), map.putIfAbsent(new String("key"), 2));
+        assertEquals(Integer.valueOf(1), map.get(new String("key")));
+        assertEquals(Integer.valueOf(1), map.put(key, 3));
+        assertEquals(Integer.valueOf(3), map.remove(new String("key")));
+        assertNull(map.get(key));
+        assertNull(map.get(null));
+    }
+
+    @Test
+    public void testIdenticalKeysWithoutEquals() {
+        ConcurrentWeakHashMap<Object, String> map = new ConcurrentWeakHashMap<Object, String>();
+        Object key = new Object() {
+            public boolean equals(Object obj) {
+                return false;
+            }
+        };
+        map.put(key, "value");
+        assertEquals("value", map.get(key));
+    }
+
+    @Test
+    public void testStaleEntriesArePurged() throws InterruptedException {
+        ConcurrentWeakHashMap<Object, String> map = new ConcurrentWeakHashMap<Object, String>();
+        for (int i = 0; i < 100; i++) map.put(new Object(), "value");
+        for (int i = 0; i < 10 && map.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertEquals(0, map.size());
+    }
+}